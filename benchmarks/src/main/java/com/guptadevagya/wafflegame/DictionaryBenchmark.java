@@ -0,0 +1,67 @@
+package com.guptadevagya.wafflegame;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Dictionary loading and lookups. Lookup keys and random draws come from a
+ * fixed seed so numbers are comparable between commits.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+@State(Scope.Thread)
+public class DictionaryBenchmark {
+    static final long SEED = 0x5EED_0002L;
+    private static final int KEYS = 1024;
+
+    private final char[] keys = new char[KEYS * 3];
+    private final String[] probes = new String[KEYS];
+    private int next;
+    private SplittableRandom rng;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        // keys taken from real words, so most lookups hit a non-empty bucket
+        SplittableRandom seeded = new SplittableRandom(SEED);
+        List<String> words = Dictionary.words();
+        for (int i = 0; i < KEYS; i++) {
+            String w = words.get(seeded.nextInt(words.size()));
+            keys[3 * i] = w.charAt(0);
+            keys[3 * i + 1] = w.charAt(2);
+            keys[3 * i + 2] = w.charAt(4);
+            // half real words, half near misses
+            probes[i] = (i & 1) == 0 ? w : w.substring(0, 4) + (char) ('A' + seeded.nextInt(26));
+        }
+        rng = new SplittableRandom(SEED);
+    }
+
+    @Benchmark
+    public List<String> get024() {
+        int i = next;
+        next = (next + 3) % keys.length;
+        return Dictionary.get024(keys[i], keys[i + 1], keys[i + 2]);
+    }
+
+    @Benchmark
+    public boolean isWord() {
+        int i = next;
+        next = (next + 1) % KEYS;
+        return Dictionary.isWord(probes[i]);
+    }
+
+    @Benchmark
+    public int queryCount() {
+        return Dictionary.query("?A?E?").exclude("Z").count();
+    }
+
+    @Benchmark
+    public List<String> randomWords() {
+        return Dictionary.randomWords(3, rng);
+    }
+}
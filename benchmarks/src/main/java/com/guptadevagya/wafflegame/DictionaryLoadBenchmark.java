@@ -0,0 +1,24 @@
+package com.guptadevagya.wafflegame;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * First touch of Dictionary.Holder: reading words.txt and building the index.
+ * Each fork measures exactly one call, so every sample is a genuinely cold
+ * load in a fresh JVM.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 0)
+@Measurement(iterations = 1)
+@Fork(20)
+public class DictionaryLoadBenchmark {
+
+    @Benchmark
+    public List<String> coldLoad() {
+        return Dictionary.words();
+    }
+}
@@ -0,0 +1,63 @@
+package com.guptadevagya.wafflegame;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Engine hot paths. Every board comes from a fixed seed so numbers are
+ * comparable between commits.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+@State(Scope.Thread)
+public class GameBenchmark {
+    static final long SEED = 0x5EED_0001L;
+
+    private WaffleGame game;
+    private SplittableRandom rng;
+    private final Hint[][] hints = new Hint[WaffleGame.WAFFLE_SIZE][WaffleGame.WAFFLE_SIZE];
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        game = new WaffleGame(new Board(), new Board());
+        game.resetToRandom(new SplittableRandom(SEED));
+        rng = new SplittableRandom(SEED);
+    }
+
+    @Benchmark
+    public boolean swap() {
+        // corner cells are letters on every board; repeated swaps flip between two states
+        return game.swap(0, 0, 4, 4);
+    }
+
+    @Benchmark
+    public boolean isCompleted() {
+        return game.isCompleted();
+    }
+
+    @Benchmark
+    public Hint[][] identifyHints() {
+        game.identifyHints(hints);
+        return hints;
+    }
+
+    @Benchmark
+    public Hint[][] swapThenIdentifyHints() {
+        // the MainPanel.updatePanel pattern: one swap, then a full hint refresh
+        game.swapNoCost(0, 2, 2, 0);
+        game.identifyHints(hints);
+        return hints;
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public WaffleGame resetToRandom() {
+        game.resetToRandom(rng);
+        return game;
+    }
+}
@@ -0,0 +1,266 @@
+package com.guptadevagya.wafflegame;
+
+import java.util.Arrays;
+
+/**
+ * The letter cells of a waffle packed 5 bits per cell (0 = empty,
+ * 1..26 = A..Z), 12 cells to a long.
+ *
+ * Cells are numbered row by row, skipping the holes (see {@link Layout}), so
+ * on the standard 5x5 board cell 0 is (0,0) and cell 20 is (4,4). Cells
+ * 0..11 live in {@code lo}, 12..23 in {@code hi}, so a 5x5 board is just those
+ * two words and copying, comparing and hashing touch nothing else; larger
+ * layouts keep the remaining cells in {@code rest}.
+ *
+ * The static tables below describe the standard layout; code that handles
+ * other sizes goes through {@link #layout()}.
+ */
+final class Board {
+    static final int SIZE = WaffleGame.WAFFLE_SIZE;
+    static final int CELLS = 21;
+    static final int WORDS = 6;
+    static final int WORD_LENGTH = SIZE;
+
+    private static final int BITS = 5;
+    private static final int PER_LONG = 12;
+    private static final long MASK = (1L << BITS) - 1;
+
+    private static final Layout STANDARD = Layout.STANDARD;
+
+    /** Row and column of each cell. */
+    static final int[] CELL_ROW = new int[CELLS];
+    static final int[] CELL_COL = new int[CELLS];
+
+    /** Cells of each word in reading order: rows 0,2,4 then columns 0,2,4. */
+    static final int[][] WORD_CELLS = new int[WORDS][];
+
+    /** Bitmask of the words each cell belongs to. */
+    static final int[] CELL_WORDS = new int[CELLS];
+
+    static {
+        for (int i = 0; i < CELLS; i++) {
+            CELL_ROW[i] = STANDARD.row(i);
+            CELL_COL[i] = STANDARD.col(i);
+            CELL_WORDS[i] = STANDARD.cellWords(i);
+        }
+        for (int w = 0; w < WORDS; w++)
+            WORD_CELLS[w] = STANDARD.wordCells(w);
+    }
+
+    private final Layout layout;
+    private long lo;
+    private long hi;
+    /** Cells from 24 on, 12 per long; null when the layout has no more than 24. */
+    private final long[] rest;
+
+    /** An empty standard board. */
+    Board() {
+        this(STANDARD, 0, 0, null);
+    }
+
+    /** An empty board of the given layout. */
+    Board(Layout layout) {
+        this(layout, 0, 0, layout.cells() > 2 * PER_LONG
+                ? new long[(layout.cells() - 2 * PER_LONG + PER_LONG - 1) / PER_LONG]
+                : null);
+    }
+
+    private Board(Layout layout, long lo, long hi, long[] rest) {
+        this.layout = layout;
+        this.lo = lo;
+        this.hi = hi;
+        this.rest = rest;
+    }
+
+    /** Rebuilds a standard board from the two words returned by {@link #lo()} and {@link #hi()}. */
+    static Board of(long lo, long hi) {
+        return new Board(STANDARD, lo, hi, null);
+    }
+
+    /** Cell index of (r, c) on the standard board, or -1 if it is a hole or out of bounds. */
+    static int cell(int r, int c) {
+        return STANDARD.cell(r, c);
+    }
+
+    /** Builds a board from an n x n grid; the layout follows from n. */
+    static Board fromGrid(char[][] grid) {
+        Layout layout = Layout.of(grid.length);
+        Board b = new Board(layout);
+        for (int i = 0; i < layout.cells(); i++)
+            b.setLetter(i, grid[layout.row(i)][layout.col(i)]);
+        return b;
+    }
+
+    /**
+     * Builds a board from its words, rows top to bottom then columns left to
+     * right; six words make a 5x5 board, eight a 7x7 one.
+     */
+    static Board fromWords(String... words) {
+        Layout layout = Layout.of(words.length - 1);
+        Board b = new Board(layout);
+        for (int w = 0; w < layout.words(); w++) {
+            if (words[w].length() != layout.wordLength())
+                throw new IllegalArgumentException(words[w] + " does not fit a " + layout + " waffle");
+            for (int i = 0; i < layout.wordLength(); i++)
+                b.setLetter(layout.wordCells(w)[i], words[w].charAt(i));
+        }
+        return b;
+    }
+
+    Layout layout() {
+        return layout;
+    }
+
+    Board copy() {
+        return new Board(layout, lo, hi, rest == null ? null : rest.clone());
+    }
+
+    /** Copies the letters of {@code other}, which must have the same layout. */
+    void copyFrom(Board other) {
+        this.lo = other.lo;
+        this.hi = other.hi;
+        if (rest != null)
+            System.arraycopy(other.rest, 0, rest, 0, rest.length);
+    }
+
+    /** Cells 0..11; with {@link #hi()} the whole of a standard board. */
+    long lo() {
+        return lo;
+    }
+
+    /** Cells 12..23. */
+    long hi() {
+        return hi;
+    }
+
+    /** The board mirrored along the main diagonal: rows become columns. */
+    Board transpose() {
+        Board t = new Board(layout);
+        for (int i = 0; i < layout.cells(); i++)
+            t.set(layout.transpose(i), get(i));
+        return t;
+    }
+
+    /**
+     * One representative for a board and its transpose (the smaller of the
+     * two by packed value), so both orientations of a waffle compare equal.
+     */
+    Board canonical() {
+        Board t = transpose();
+        int cmp = 0;
+        for (int i = rest == null ? 0 : rest.length; i > 0 && cmp == 0; i--)
+            cmp = Long.compareUnsigned(rest[i - 1], t.rest[i - 1]);
+        if (cmp == 0)
+            cmp = Long.compareUnsigned(hi, t.hi);
+        if (cmp == 0)
+            cmp = Long.compareUnsigned(lo, t.lo);
+        return cmp <= 0 ? this : t;
+    }
+
+    /** Letter code of a cell: 0 for empty, 1..26 for A..Z. */
+    int get(int cell) {
+        if (cell < PER_LONG)
+            return (int) ((lo >>> (BITS * cell)) & MASK);
+        if (cell < 2 * PER_LONG)
+            return (int) ((hi >>> (BITS * (cell - PER_LONG))) & MASK);
+        return (int) ((rest[cell / PER_LONG - 2] >>> (BITS * (cell % PER_LONG))) & MASK);
+    }
+
+    void set(int cell, int code) {
+        if (cell < PER_LONG) {
+            int s = BITS * cell;
+            lo = (lo & ~(MASK << s)) | ((long) code << s);
+        } else if (cell < 2 * PER_LONG) {
+            int s = BITS * (cell - PER_LONG);
+            hi = (hi & ~(MASK << s)) | ((long) code << s);
+        } else {
+            int i = cell / PER_LONG - 2;
+            int s = BITS * (cell % PER_LONG);
+            rest[i] = (rest[i] & ~(MASK << s)) | ((long) code << s);
+        }
+    }
+
+    char letter(int cell) {
+        return toChar(get(cell));
+    }
+
+    void setLetter(int cell, char ch) {
+        set(cell, toCode(ch));
+    }
+
+    void swap(int a, int b) {
+        int la = get(a);
+        set(a, get(b));
+        set(b, la);
+    }
+
+    /** The letters of word {@code w} as a String. */
+    String word(int w) {
+        int[] cells = layout.wordCells(w);
+        char[] out = new char[cells.length];
+        for (int i = 0; i < cells.length; i++)
+            out[i] = letter(cells[i]);
+        return new String(out);
+    }
+
+    /** Bitmask of the cells whose letters differ from {@code other}. */
+    long diffMask(Board other) {
+        long mask = diffBits(lo ^ other.lo, 0) | diffBits(hi ^ other.hi, PER_LONG);
+        for (int i = 0; rest != null && i < rest.length; i++)
+            mask |= diffBits(rest[i] ^ other.rest[i], (i + 2) * PER_LONG);
+        return mask;
+    }
+
+    private static long diffBits(long d, int first) {
+        long mask = 0;
+        for (int i = first; d != 0; i++, d >>>= BITS) {
+            if ((d & MASK) != 0)
+                mask |= 1L << i;
+        }
+        return mask;
+    }
+
+    /** Writes the letters into a size x size grid, with ' ' in the holes. */
+    void toGrid(char[][] grid) {
+        for (int r = 0; r < layout.size(); r++) {
+            for (int c = 0; c < layout.size(); c++) {
+                int cell = layout.cell(r, c);
+                grid[r][c] = cell < 0 ? ' ' : letter(cell);
+            }
+        }
+    }
+
+    static int toCode(char ch) {
+        if (ch >= 'A' && ch <= 'Z')
+            return ch - 'A' + 1;
+        if (ch >= 'a' && ch <= 'z')
+            return ch - 'a' + 1;
+        return 0;
+    }
+
+    static char toChar(int code) {
+        return code == 0 ? ' ' : (char) ('A' + code - 1);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof Board b && b.lo == lo && b.hi == hi && b.layout == layout
+                && (rest == null || Arrays.equals(rest, b.rest));
+    }
+
+    @Override
+    public int hashCode() {
+        long h = lo * 0x9E3779B97F4A7C15L ^ hi;
+        for (int i = 0; rest != null && i < rest.length; i++)
+            h = h * 0x9E3779B97F4A7C15L ^ rest[i];
+        return Long.hashCode(h);
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder(layout.cells());
+        for (int i = 0; i < layout.cells(); i++)
+            sb.append(letter(i));
+        return sb.toString();
+    }
+}
@@ -0,0 +1,181 @@
+package com.guptadevagya.wafflegame;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.random.RandomGenerator;
+
+/**
+ * Builds solution boards by depth-first search over the six word slots.
+ *
+ * Each step picks the open slot with the fewest candidates (letters already
+ * fixed by crossing words are looked up in the {@link PatternIndex}), tries
+ * its candidates in random order and backtracks as soon as some open slot has
+ * none left. The search is exhaustive, so it finds a board whenever the word
+ * list admits one. All words of a board are distinct.
+ *
+ * The waffle size follows from the word length: five-letter words make the
+ * standard 5x5 board, seven-letter words a 7x7 one (see {@link Layout}).
+ *
+ * Not thread-safe; scratch buffers are reused between calls.
+ */
+final class BoardGenerator {
+    /** A generated solution and the number of word placements it took. */
+    record Result(Board board, long nodes) {
+    }
+
+    /** The word list admits no board at all; retrying can't help. */
+    static final class NoBoardException extends IllegalStateException {
+        private static final long serialVersionUID = 1L;
+
+        NoBoardException(String message) {
+            super(message);
+        }
+    }
+
+    private final Layout layout;
+    private final PatternIndex index;
+    private final int slots;
+    private final int len;
+
+    private final long[][] masks;
+    private long[] spare;
+    private final int[][] candidates;
+    private final int[] allowed;
+    private final int[] assigned;
+    private final int[] letters;
+    private final int[] refs;
+
+    private RandomGenerator rng;
+    private long nodes;
+
+    BoardGenerator() {
+        this(Dictionary.patterns());
+    }
+
+    /** @param words distinct uppercase words, all of one supported length */
+    BoardGenerator(List<String> words) {
+        this(new PatternIndex(words, words.isEmpty() ? Board.WORD_LENGTH : words.get(0).length()));
+    }
+
+    BoardGenerator(PatternIndex index) {
+        this.layout = Layout.of(index.length());
+        this.index = index;
+        this.slots = layout.words();
+        this.len = layout.wordLength();
+        this.masks = new long[slots][index.blocks()];
+        this.spare = new long[index.blocks()];
+        this.candidates = new int[slots][index.size()];
+        this.allowed = new int[len];
+        this.assigned = new int[slots];
+        this.letters = new int[layout.cells()];
+        this.refs = new int[layout.cells()];
+    }
+
+    Layout layout() {
+        return layout;
+    }
+
+    /** Generates one solution board; throws if the word list admits none. */
+    Result generate(RandomGenerator rng) {
+        this.rng = rng;
+        this.nodes = 0;
+        Arrays.fill(assigned, -1);
+        Arrays.fill(letters, 0);
+        Arrays.fill(refs, 0);
+        try {
+            if (!search(0))
+                throw new NoBoardException("Could not generate a board from " + index.size() + " words.");
+            Board board = new Board(layout);
+            for (int slot = 0; slot < slots; slot++) {
+                for (int i = 0; i < len; i++)
+                    board.set(layout.wordCells(slot)[i], index.letter(assigned[slot], i) + 1);
+            }
+            return new Result(board, nodes);
+        } finally {
+            this.rng = null;
+        }
+    }
+
+    private boolean search(int depth) {
+        if (depth == slots)
+            return true;
+
+        // most constrained open slot first; give up on this branch if any slot is dead
+        int slot = -1;
+        int count = Integer.MAX_VALUE;
+        for (int s = 0; s < slots; s++) {
+            if (assigned[s] >= 0)
+                continue;
+            int n = constrain(s, spare);
+            if (n == 0)
+                return false;
+            if (n < count) {
+                long[] t = masks[depth];
+                masks[depth] = spare;
+                spare = t;
+                slot = s;
+                count = n;
+            }
+        }
+
+        int[] buf = candidates[depth];
+        int n = collect(masks[depth], buf);
+        for (int left = n; left > 0; left--) {
+            int j = rng.nextInt(left);
+            int id = buf[j];
+            buf[j] = buf[left - 1];
+            buf[left - 1] = id;
+
+            nodes++;
+            place(slot, id);
+            if (search(depth + 1))
+                return true;
+            unplace(slot);
+        }
+        return false;
+    }
+
+    /** Fills {@code out} with the candidate words for a slot and returns how many there are. */
+    private int constrain(int slot, long[] out) {
+        int[] cells = layout.wordCells(slot);
+        for (int pos = 0; pos < len; pos++) {
+            int l = letters[cells[pos]];
+            allowed[pos] = l == 0 ? PatternIndex.ANY : 1 << (l - 1);
+        }
+        int n = index.fill(allowed, out);
+        for (int s = 0; s < slots; s++) {
+            int id = assigned[s];
+            if (id >= 0 && (out[id >>> 6] & (1L << id)) != 0) {
+                out[id >>> 6] &= ~(1L << id);
+                n--;
+            }
+        }
+        return n;
+    }
+
+    private static int collect(long[] mask, int[] out) {
+        int n = 0;
+        for (int b = 0; b < mask.length; b++) {
+            for (long m = mask[b]; m != 0; m &= m - 1)
+                out[n++] = (b << 6) | Long.numberOfTrailingZeros(m);
+        }
+        return n;
+    }
+
+    private void place(int slot, int id) {
+        assigned[slot] = id;
+        int[] cells = layout.wordCells(slot);
+        for (int i = 0; i < len; i++) {
+            letters[cells[i]] = index.letter(id, i) + 1;
+            refs[cells[i]]++;
+        }
+    }
+
+    private void unplace(int slot) {
+        assigned[slot] = -1;
+        for (int cell : layout.wordCells(slot)) {
+            if (--refs[cell] == 0)
+                letters[cell] = 0;
+        }
+    }
+}
@@ -0,0 +1,176 @@
+package com.guptadevagya.wafflegame;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedWriter;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Headless batch generator: writes N puzzles with distinct solutions, using
+ * one worker per core.
+ *
+ * Solutions are deduplicated by {@link Board#canonical()}, so a board and its
+ * transpose count as the same waffle. A single writer thread streams results
+ * to disk as they arrive, either in the waffles.txt text format or as raw
+ * binary records of four big-endian longs (start lo/hi, solution lo/hi).
+ *
+ * <pre>
+ * java -cp target/classes com.guptadevagya.wafflegame.BulkGenerator 100000 boards.txt [--threads 8] [--format text|binary]
+ * </pre>
+ */
+public final class BulkGenerator {
+
+    enum Format {
+        TEXT, BINARY
+    }
+
+    /** Outcome of a run. */
+    record Stats(long boards, long duplicates, int threads, long nanos) {
+        double boardsPerSecond() {
+            return nanos == 0 ? 0 : boards * 1e9 / nanos;
+        }
+
+        double boardsPerSecondPerCore() {
+            return boardsPerSecond() / threads;
+        }
+    }
+
+    // a run gives up if this many generated boards in a row were all duplicates
+    private static final long MAX_DUPLICATE_STREAK = 100_000;
+    private static final Puzzle END = new Puzzle(new Board(), new Board());
+
+    private BulkGenerator() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("usage: BulkGenerator <count> <output> [--threads N] [--format text|binary] [--seed S]");
+            System.exit(2);
+        }
+        long count = Long.parseLong(args[0]);
+        Path out = Path.of(args[1]);
+        int threads = Runtime.getRuntime().availableProcessors();
+        Format format = Format.TEXT;
+        long seed = System.nanoTime();
+        for (int i = 2; i + 1 < args.length; i += 2) {
+            switch (args[i]) {
+                case "--threads" -> threads = Integer.parseInt(args[i + 1]);
+                case "--format" -> format = Format.valueOf(args[i + 1].toUpperCase(Locale.ROOT));
+                case "--seed" -> seed = Long.parseLong(args[i + 1]);
+                default -> throw new IllegalArgumentException("unknown option " + args[i]);
+            }
+        }
+
+        Stats s = run(count, threads, seed, out, format);
+        System.out.printf(Locale.ROOT, "%d boards (%d duplicates skipped) in %.2f s on %d threads%n",
+                s.boards(), s.duplicates(), s.nanos() / 1e9, s.threads());
+        System.out.printf(Locale.ROOT, "%.0f boards/s, %.0f boards/s per core%n",
+                s.boardsPerSecond(), s.boardsPerSecondPerCore());
+    }
+
+    /** Generates {@code count} puzzles with distinct solutions into {@code out}. */
+    static Stats run(long count, int threads, long seed, Path out, Format format) throws IOException {
+        Set<Board> seen = ConcurrentHashMap.newKeySet();
+        BlockingQueue<Puzzle> queue = new ArrayBlockingQueue<>(4096);
+        AtomicLong accepted = new AtomicLong();
+        AtomicLong duplicates = new AtomicLong();
+        AtomicLong streak = new AtomicLong();
+
+        long start = System.nanoTime();
+        ExecutorService pool = Executors.newFixedThreadPool(threads + 1);
+        try (OutputStream os = new BufferedOutputStream(Files.newOutputStream(out), 1 << 16)) {
+            Future<?> writer = pool.submit(() -> write(queue, os, format));
+
+            SplittableRandom root = new SplittableRandom(seed);
+            List<Future<?>> workers = new ArrayList<>(threads);
+            for (int t = 0; t < threads; t++) {
+                SplittableRandom rng = root.split();
+                workers.add(pool.submit(() -> {
+                    while (accepted.get() < count && streak.get() < MAX_DUPLICATE_STREAK) {
+                        Puzzle p = WaffleGame.generate(rng);
+                        if (!seen.add(p.solution().canonical())) {
+                            duplicates.incrementAndGet();
+                            streak.incrementAndGet();
+                            continue;
+                        }
+                        streak.set(0);
+                        if (accepted.incrementAndGet() > count)
+                            break;
+                        // stop instead of blocking forever if the writer died
+                        while (!queue.offer(p, 100, TimeUnit.MILLISECONDS)) {
+                            if (writer.isDone())
+                                return null;
+                        }
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> f : workers)
+                f.get();
+            // same as the workers: don't block on a full queue if the writer died meanwhile
+            while (!queue.offer(END, 100, TimeUnit.MILLISECONDS)) {
+                if (writer.isDone())
+                    break;
+            }
+            writer.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("interrupted", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof UncheckedIOException io)
+                throw io.getCause();
+            throw new IllegalStateException(e.getCause());
+        } finally {
+            pool.shutdownNow();
+        }
+        long boards = Math.min(count, accepted.get());
+        return new Stats(boards, duplicates.get(), threads, System.nanoTime() - start);
+    }
+
+    private static Void write(BlockingQueue<Puzzle> queue, OutputStream os, Format format)
+            throws InterruptedException {
+        try {
+            if (format == Format.BINARY) {
+                DataOutputStream data = new DataOutputStream(os);
+                for (Puzzle p = queue.take(); p != END; p = queue.take()) {
+                    data.writeLong(p.start().lo());
+                    data.writeLong(p.start().hi());
+                    data.writeLong(p.solution().lo());
+                    data.writeLong(p.solution().hi());
+                }
+                data.flush();
+            } else {
+                Writer w = new BufferedWriter(new OutputStreamWriter(os, StandardCharsets.US_ASCII));
+                char[][] grid = new char[Board.SIZE][Board.SIZE];
+                long number = 0;
+                for (Puzzle p = queue.take(); p != END; p = queue.take())
+                    PuzzleFile.write(w, ++number, p, grid);
+                w.flush();
+            }
+            return null;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -4,14 +4,28 @@ import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.nio.file.Path;
+import java.sql.SQLException;
 import java.util.*;
 import java.util.concurrent.ThreadLocalRandom;
+import java.util.random.RandomGenerator;
 
 /**
- * Loads 5-letter words from resources/words.txt and indexes letters at 0,2,4.
+ * Loads 5-letter words from resources/words.txt and indexes letters at 0,2,4,
+ * plus per-position letter bitsets for general pattern queries. Setting the
+ * {@code waffle.words} system property to a {@link SqliteStore} database
+ * (such as the bundled words.db) reads the words from its table instead.
+ *
+ * Words are held as 25-bit codes (5 bits per letter, first letter highest) in
+ * sorted int arrays, so code order is alphabetical order. Strings are only
+ * created when a word leaves through the API.
  */
 final class Dictionary {
     private static final String RESOURCE = "words.txt";
+    private static final String STORE_PROPERTY = "waffle.words";
+    private static final int BITS = 5;
+    private static final int MASK = (1 << BITS) - 1;
+    private static final int SPACE = 26 * 26 * 26 * 26 * 26;
 
     private Dictionary() {
     }
@@ -21,47 +35,168 @@ final class Dictionary {
         private Holder() {
         } // hide implicit public ctor (Sonar)
 
-        static final List<String> WORDS = loadWords();
-        static final Map<Integer, List<String>> INDEX024 = buildIndex024(WORDS);
+        /** Every word's code, sorted and distinct. */
+        static final int[] CODES = loadCodes();
+        /** The same codes ordered by their letters at 0,2,4, so each key owns one range. */
+        static final int[] BY024 = sortBy024(CODES);
+        static final RangeTable INDEX024 = new RangeTable(BY024);
+        static final List<String> WORDS = new CodeList(CODES, 0, CODES.length);
+        static final PatternIndex PATTERNS = new PatternIndex(WORDS, 5);
 
-        private static List<String> loadWords() {
+        private static int[] loadCodes() {
+            String store = System.getProperty(STORE_PROPERTY);
+            if (store != null)
+                return loadCodes(Path.of(store));
+            long start = System.nanoTime();
             try (InputStream in = Objects.requireNonNull(
                     Dictionary.class.getClassLoader().getResourceAsStream(RESOURCE),
                     "Missing " + RESOURCE + " in resources");
                     BufferedReader br = new BufferedReader(new InputStreamReader(in))) {
 
-                List<String> list = br.lines()
+                int[] codes = br.lines()
                         .map(String::trim)
-                        .filter(s -> !s.isEmpty())
                         .map(String::toUpperCase)
                         .filter(Dictionary::isFiveLettersAZ)
+                        .mapToInt(Dictionary::encode)
+                        .sorted()
                         .distinct()
-                        .toList();
-                if (list.isEmpty()) {
+                        .toArray();
+                if (codes.length == 0) {
                     throw new IllegalStateException("words.txt contains no valid 5-letter words.");
                 }
-                return Collections.unmodifiableList(list);
+                Metrics.DICTIONARY_LOAD.since(start);
+                return codes;
             } catch (IOException e) {
                 throw new IllegalStateException("Failed to load " + RESOURCE, e);
             }
         }
 
-        private static Map<Integer, List<String>> buildIndex024(List<String> words) {
-            @SuppressWarnings("java:S6485") // prefer HashMap.newHashMap(...) (not on Java 17)
-            Map<Integer, List<String>> map = new HashMap<>(Math.max(32, words.size() / 2));
-            for (String w : words) {
-                int k = key(w.charAt(0), w.charAt(2), w.charAt(4));
-                map.computeIfAbsent(k, _ -> new ArrayList<>()).add(w);
+        private static int[] loadCodes(Path store) {
+            long start = System.nanoTime();
+            if (!SqliteStore.isStore(store.toString()))
+                throw new IllegalStateException(STORE_PROPERTY + "=" + store + " is not a SQLite database");
+            try (SqliteStore db = SqliteStore.openReadOnly(store)) {
+                int[] codes = db.words().stream()
+                        .mapToInt(Dictionary::encode)
+                        .sorted()
+                        .distinct()
+                        .toArray();
+                if (codes.length == 0) {
+                    throw new IllegalStateException(store + " contains no valid 5-letter words.");
+                }
+                Metrics.DICTIONARY_LOAD.since(start);
+                return codes;
+            } catch (SQLException e) {
+                throw new IllegalStateException("Failed to load words from " + store, e);
+            }
+        }
+
+        private static int[] sortBy024(int[] codes) {
+            // sort (key << 25 | code) so ties keep alphabetical order
+            long[] keyed = new long[codes.length];
+            for (int i = 0; i < codes.length; i++)
+                keyed[i] = ((long) key024(codes[i]) << (5 * BITS)) | codes[i];
+            Arrays.sort(keyed);
+            int[] out = new int[codes.length];
+            for (int i = 0; i < codes.length; i++)
+                out[i] = (int) keyed[i];
+            return out;
+        }
+    }
+
+    /**
+     * One bit per point of the 26^5 word space (about 1.5 MB), built on first
+     * membership check rather than with the word list.
+     */
+    private static final class Members {
+        private Members() {
+        }
+
+        static final long[] BITMAP = build();
+
+        private static long[] build() {
+            long[] bits = new long[(SPACE + 63) >>> 6];
+            for (int code : Holder.CODES) {
+                int i = 0;
+                for (int shift = 4 * BITS; shift >= 0; shift -= BITS)
+                    i = i * 26 + ((code >>> shift) & MASK);
+                bits[i >>> 6] |= 1L << i;
+            }
+            return bits;
+        }
+    }
+
+    /**
+     * Open-addressing map from a 15-bit 0,2,4 key to the range of
+     * {@link Holder#BY024} holding its words. Linear probing, load factor at
+     * most 1/2; each slot packs key, start and end into one long.
+     */
+    static final class RangeTable {
+        private static final long EMPTY = -1;
+
+        private final long[] slots;
+        private final int shift;
+
+        RangeTable(int[] byKey) {
+            int keys = 0;
+            for (int i = 0; i < byKey.length; i++) {
+                if (i == 0 || key024(byKey[i]) != key024(byKey[i - 1]))
+                    keys++;
+            }
+            int capacity = Integer.highestOneBit(Math.max(2, keys) * 2 - 1) << 1;
+            this.slots = new long[capacity];
+            this.shift = 32 - Integer.numberOfTrailingZeros(capacity);
+            Arrays.fill(slots, EMPTY);
+            for (int start = 0; start < byKey.length;) {
+                int key = key024(byKey[start]);
+                int end = start + 1;
+                while (end < byKey.length && key024(byKey[end]) == key)
+                    end++;
+                int i = slot(key);
+                while (slots[i] != EMPTY)
+                    i = (i + 1) & (slots.length - 1);
+                slots[i] = ((long) key << 48) | ((long) start << 24) | end;
+                start = end;
+            }
+        }
+
+        /** Packed {@code start << 24 | end} for {@code key}, or -1 if no word has it. */
+        long range(int key) {
+            for (int i = slot(key);; i = (i + 1) & (slots.length - 1)) {
+                long s = slots[i];
+                if (s == EMPTY)
+                    return -1;
+                if ((int) (s >>> 48) == key)
+                    return s & ((1L << 48) - 1);
             }
-            map.replaceAll((_, v) -> Collections.unmodifiableList(v));
-            return Collections.unmodifiableMap(map);
         }
 
-        private static int key(char a, char b, char c) {
-            int au = Character.toUpperCase(a);
-            int bu = Character.toUpperCase(b);
-            int cu = Character.toUpperCase(c);
-            return (au << 16) | (bu << 8) | cu;
+        private int slot(int key) {
+            return (key * 0x9E3779B9) >>> shift;
+        }
+    }
+
+    /** Read-only String view of {@code codes[from, to)}; decodes on access. */
+    private static final class CodeList extends AbstractList<String> implements RandomAccess {
+        private final int[] codes;
+        private final int from;
+        private final int to;
+
+        CodeList(int[] codes, int from, int to) {
+            this.codes = codes;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        public String get(int index) {
+            Objects.checkIndex(index, to - from);
+            return decode(codes[from + index]);
+        }
+
+        @Override
+        public int size() {
+            return to - from;
         }
     }
 
@@ -72,6 +207,11 @@ final class Dictionary {
 
     /** Return k random distinct words (uppercased). */
     static List<String> randomWords(int k) {
+        return randomWords(k, ThreadLocalRandom.current());
+    }
+
+    /** Return k random distinct words (uppercased), drawn from {@code rng}. */
+    static List<String> randomWords(int k, RandomGenerator rng) {
         List<String> src = words();
         int size = src.size();
         int count = clamp(k, 0, size);
@@ -79,7 +219,6 @@ final class Dictionary {
         @SuppressWarnings("java:S6485") // prefer HashSet.newHashSet(...) (not on Java 17)
         Set<Integer> used = new HashSet<>(Math.max(16, count * 2));
         ArrayList<String> out = new ArrayList<>(count);
-        ThreadLocalRandom rng = ThreadLocalRandom.current();
 
         while (out.size() < count) {
             int i = rng.nextInt(size);
@@ -92,13 +231,107 @@ final class Dictionary {
 
     /** Candidates whose letters at 0,2,4 equal a,b,c (uppercased). */
     static List<String> get024(char a, char b, char c) {
-        int key = Holder.key(a, b, c);
-        List<String> list = Holder.INDEX024.get(key);
-        return (list == null) ? Collections.emptyList() : list;
+        int ka = Character.toUpperCase(a) - 'A';
+        int kb = Character.toUpperCase(b) - 'A';
+        int kc = Character.toUpperCase(c) - 'A';
+        if ((ka | kb | kc) < 0 || ka >= 26 || kb >= 26 || kc >= 26)
+            return Collections.emptyList();
+        long range = Holder.INDEX024.range((ka << (2 * BITS)) | (kb << BITS) | kc);
+        return range < 0
+                ? Collections.emptyList()
+                : new CodeList(Holder.BY024, (int) (range >>> 24), (int) (range & 0xFFFFFF));
+    }
+
+    /** Whether {@code word} is in the dictionary (case-insensitive). One bitmap probe, no allocation. */
+    static boolean isWord(CharSequence word) {
+        if (word.length() != 5)
+            return false;
+        int i = 0;
+        for (int pos = 0; pos < 5; pos++) {
+            int l = (word.charAt(pos) | 0x20) - 'a';
+            if (l < 0 || l >= 26)
+                return false;
+            i = i * 26 + l;
+        }
+        return (Members.BITMAP[i >>> 6] & (1L << i)) != 0;
+    }
+
+    /** Whether word {@code w} of {@code board} (see {@link Board#WORD_CELLS}) is in the dictionary; false while it has empty cells. */
+    static boolean isWord(Board board, int w) {
+        int i = 0;
+        for (int cell : Board.WORD_CELLS[w]) {
+            int l = board.get(cell) - 1;
+            if (l < 0)
+                return false;
+            i = i * 26 + l;
+        }
+        return (Members.BITMAP[i >>> 6] & (1L << i)) != 0;
+    }
+
+    /** Query over all words, e.g. {@code query("?A?E?").exclude("Z").count()}. */
+    static WordQuery query(String pattern) {
+        return new WordQuery(Holder.PATTERNS, pattern);
+    }
+
+    /** The positional bitset index behind {@link #query(String)}. */
+    static PatternIndex patterns() {
+        return Holder.PATTERNS;
+    }
+
+    /** Word lists by length, loaded on first use. */
+    private static final WordList[] BY_LENGTH = new WordList[13];
+
+    /**
+     * Words for waffles of size {@code length}: words.txt for 5, otherwise a
+     * words{length}.txt resource such as words7.txt. Throws if it is missing.
+     */
+    static synchronized WordList ofLength(int length) {
+        if (length < 1 || length >= BY_LENGTH.length)
+            throw new IllegalArgumentException("word length " + length);
+        if (BY_LENGTH[length] == null) {
+            if (length == 5) {
+                BY_LENGTH[length] = WordList.of(words(), length);
+            } else {
+                String name = "words" + length + ".txt";
+                InputStream in = Dictionary.class.getClassLoader().getResourceAsStream(name);
+                if (in == null)
+                    throw new IllegalStateException("Missing " + name + " in resources");
+                long start = System.nanoTime();
+                try (BufferedReader br = new BufferedReader(new InputStreamReader(in))) {
+                    BY_LENGTH[length] = WordList.read(br, length);
+                    Metrics.DICTIONARY_LOAD.since(start);
+                } catch (IOException e) {
+                    throw new IllegalStateException("Failed to load " + name, e);
+                }
+            }
+        }
+        return BY_LENGTH[length];
     }
 
     // ---- helpers ----
 
+    /** 25-bit code of a 5-letter A–Z word: letter i (A = 0) in bits 5*(4-i)..5*(4-i)+4. */
+    static int encode(CharSequence word) {
+        int code = 0;
+        for (int i = 0; i < 5; i++)
+            code = (code << BITS) | (word.charAt(i) - 'A');
+        return code;
+    }
+
+    static String decode(int code) {
+        char[] out = new char[5];
+        for (int i = 4; i >= 0; i--, code >>>= BITS)
+            out[i] = (char) ('A' + (code & MASK));
+        return new String(out);
+    }
+
+    /** Letters at 0,2,4 of a code, packed into 15 bits. */
+    private static int key024(int code) {
+        return ((code >>> (2 * BITS)) & (MASK << (2 * BITS)))
+                | ((code >>> BITS) & (MASK << BITS))
+                | (code & MASK);
+    }
+
     // Sonar suggests Math.clamp (Java 21+). We keep Java 17 support;
     // replace with Math.clamp when upgrading the toolchain.
     @SuppressWarnings("java:S6885")
@@ -110,7 +343,7 @@ final class Dictionary {
         return v;
     }
 
-    private static boolean isFiveLettersAZ(String s) {
+    static boolean isFiveLettersAZ(String s) {
         if (s.length() != 5)
             return false;
         for (int i = 0; i < 5; i++) {
@@ -0,0 +1,167 @@
+package com.guptadevagya.wafflegame;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+
+/**
+ * Difficulty rating of a puzzle at its start position.
+ *
+ * <ul>
+ * <li>{@code swaps}: optimal swap count from {@link SwapSolver}.</li>
+ * <li>{@code ambiguous}: misplaced cells whose letter is needed by more than
+ * one misplaced cell, so the hints alone don't say where it goes.</li>
+ * <li>{@code yellows}: cells hinted WRONG_POSITION at the start.</li>
+ * <li>{@code rarity}: how unusual the solution words are, as the average
+ * surprise in bits of each letter at its position across the dictionary
+ * (words.txt has no frequency data, so positional letter frequency stands
+ * in for word frequency).</li>
+ * </ul>
+ *
+ * {@link #score()} weights these into one number and {@link #tier()} buckets
+ * it. Rating is a pure function of the puzzle, so batches are rated in
+ * parallel with no shared state.
+ */
+record Difficulty(int swaps, int ambiguous, int yellows, double rarity) {
+
+    enum Tier {
+        EASY, MEDIUM, HARD
+    }
+
+    // score cut-offs, set so generated puzzles split roughly 30 / 45 / 25;
+    // recalibrate whenever generation or scrambling changes (DifficultyTest checks the split)
+    private static final double MEDIUM_FROM = 13.9;
+    private static final double HARD_FROM = 16.5;
+
+    /** Surprise in bits of each (position, letter), from the dictionary. */
+    private static final class Surprise {
+        private Surprise() {
+        }
+
+        static final double[] BITS = build();
+
+        private static double[] build() {
+            PatternIndex index = Dictionary.patterns();
+            double[] bits = new double[Board.WORD_LENGTH * PatternIndex.LETTERS];
+            int[] allowed = new int[Board.WORD_LENGTH];
+            for (int pos = 0; pos < Board.WORD_LENGTH; pos++) {
+                for (int l = 0; l < PatternIndex.LETTERS; l++) {
+                    Arrays.fill(allowed, PatternIndex.ANY);
+                    allowed[pos] = 1 << l;
+                    // add-one smoothing keeps unseen letters finite
+                    double p = (index.count(allowed) + 1.0) / (index.size() + PatternIndex.LETTERS);
+                    bits[pos * PatternIndex.LETTERS + l] = -Math.log(p) / Math.log(2);
+                }
+            }
+            return bits;
+        }
+    }
+
+    static Difficulty rate(Puzzle p) {
+        Board start = p.start();
+        Board solution = p.solution();
+
+        int swaps = SwapSolver.distance(start, solution);
+
+        int[] misplaced = new int[27];
+        for (int i = 0; i < Board.CELLS; i++) {
+            if (start.get(i) != solution.get(i))
+                misplaced[solution.get(i)]++;
+        }
+        int ambiguous = 0;
+        for (int k : misplaced) {
+            if (k >= 2)
+                ambiguous += k;
+        }
+
+        HintEngine hints = new HintEngine();
+        hints.reset(start, solution);
+        int yellows = Long.bitCount(hints.presentMask());
+
+        double surprise = 0;
+        for (int w = 0; w < Board.WORDS; w++) {
+            for (int pos = 0; pos < Board.WORD_LENGTH; pos++) {
+                int l = solution.get(Board.WORD_CELLS[w][pos]) - 1;
+                surprise += Surprise.BITS[pos * PatternIndex.LETTERS + Math.max(0, l)];
+            }
+        }
+        return new Difficulty(swaps, ambiguous, yellows, surprise / (Board.WORDS * Board.WORD_LENGTH));
+    }
+
+    /** Rates every puzzle on {@code threads} cores; results line up with {@code puzzles}. */
+    static Difficulty[] rateAll(List<Puzzle> puzzles, int threads) {
+        Difficulty[] out = new Difficulty[puzzles.size()];
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        try {
+            pool.submit(() -> IntStream.range(0, out.length).parallel()
+                    .forEach(i -> out[i] = rate(puzzles.get(i)))).join();
+        } finally {
+            pool.shutdown();
+        }
+        return out;
+    }
+
+    /**
+     * Higher is harder: each optimal swap counts one point, each ambiguous
+     * cell a quarter, each yellow a fifth (more yellows mean more letters to
+     * place by elimination), and rarity adds a point per bit above four.
+     */
+    double score() {
+        return swaps + 0.25 * ambiguous + 0.2 * yellows + Math.max(0, rarity - 4);
+    }
+
+    Tier tier() {
+        double s = score();
+        if (s >= HARD_FROM)
+            return Tier.HARD;
+        return s >= MEDIUM_FROM ? Tier.MEDIUM : Tier.EASY;
+    }
+
+    /** {@code Difficulty <puzzles.txt|.wafl> [--threads N]}: prints one rating per puzzle. */
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1) {
+            System.err.println("usage: Difficulty <puzzles.txt|" + PuzzleArchive.EXTENSION + "> [--threads N]");
+            System.exit(2);
+        }
+        int threads = Runtime.getRuntime().availableProcessors();
+        if (args.length >= 3 && args[1].equals("--threads"))
+            threads = Integer.parseInt(args[2]);
+
+        Path file = Path.of(args[0]);
+        List<Integer> numbers = new ArrayList<>();
+        List<Puzzle> puzzles = new ArrayList<>();
+        if (PuzzleArchive.isArchive(args[0])) {
+            try (PuzzleArchive a = PuzzleArchive.open(file)) {
+                for (int n = a.first(); n <= a.last(); n++) {
+                    if (a.contains(n)) {
+                        numbers.add(n);
+                        puzzles.add(a.get(n));
+                    }
+                }
+            }
+        } else {
+            int skipped = PuzzleFile.read(file, Layout.STANDARD, (n, p) -> {
+                numbers.add(n);
+                puzzles.add(p);
+            });
+            if (skipped > 0)
+                System.err.println("skipped " + skipped + " malformed or non-5x5 puzzle(s)");
+        }
+
+        long t0 = System.nanoTime();
+        Difficulty[] ratings = rateAll(puzzles, threads);
+        long nanos = System.nanoTime() - t0;
+        System.out.println("number,swaps,ambiguous,yellows,rarity,score,tier");
+        for (int i = 0; i < ratings.length; i++) {
+            Difficulty d = ratings[i];
+            System.out.printf(Locale.ROOT, "%d,%d,%d,%d,%.3f,%.2f,%s%n", numbers.get(i), d.swaps(), d.ambiguous(),
+                    d.yellows(), d.rarity(), d.score(), d.tier());
+        }
+        System.err.printf(Locale.ROOT, "rated %d puzzles in %.1f ms on %d threads%n", ratings.length, nanos / 1e6, threads);
+    }
+}
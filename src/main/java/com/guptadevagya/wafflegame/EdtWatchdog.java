@@ -0,0 +1,174 @@
+package com.guptadevagya.wafflegame;
+
+import javax.swing.RepaintManager;
+import java.awt.AWTEvent;
+import java.awt.EventQueue;
+import java.awt.Toolkit;
+import java.io.PrintWriter;
+import java.io.Writer;
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Times every event the event thread dispatches and every repaint pass.
+ * A sampler thread takes the event thread's stack once an event has run
+ * past {@link #STALL_NANOS}, so each logged stall says where the time went.
+ *
+ * The threshold comes from the {@code waffle.stall.ms} system property
+ * (default 100). The log keeps the last {@link #LOG_SIZE} stalls.
+ */
+final class EdtWatchdog {
+    static final long STALL_NANOS = Long.getLong("waffle.stall.ms", 100) * 1_000_000;
+    static final int LOG_SIZE = 50;
+    private static final long POLL_MILLIS = 20;
+
+    /** An event that took longer than the threshold, and the stack sampled while it ran (may be empty). */
+    record Stall(Instant at, long nanos, String event, StackTraceElement[] stack) {
+    }
+
+    private static volatile boolean installed;
+    private static volatile Thread edt;
+
+    // the event being dispatched and when it last resumed, or 0 when idle
+    private static volatile long currentId;
+    private static volatile long current;
+    // the event the sampler took a stack for, and that stack
+    private static volatile long sampledId;
+    private static volatile StackTraceElement[] sample;
+
+    // event thread only: dispatch depth, last event id, and time the innermost
+    // event spent in nested dispatches or waiting in a modal loop
+    private static int depth;
+    private static long lastId;
+    private static long excluded;
+
+    private static final AtomicLong worstFrame = new AtomicLong();
+    private static final AtomicLong worstStall = new AtomicLong();
+    private static final Deque<Stall> log = new ArrayDeque<>();
+
+    private EdtWatchdog() {
+    }
+
+    /** Starts watching the event thread; later calls do nothing. */
+    static synchronized void install() {
+        if (installed)
+            return;
+        installed = true;
+        Toolkit.getDefaultToolkit().getSystemEventQueue().push(new TimedQueue());
+        EventQueue.invokeLater(() -> RepaintManager.setCurrentManager(new TimedRepaintManager()));
+        Thread.ofPlatform().daemon().name("edt-watchdog").start(EdtWatchdog::sample);
+    }
+
+    /** The slowest repaint pass since the last call, in nanoseconds. */
+    static long takeWorstFrame() {
+        return worstFrame.getAndSet(0);
+    }
+
+    /** The longest event dispatch seen so far, in nanoseconds. */
+    static long worstStall() {
+        return worstStall.get();
+    }
+
+    /** The logged stalls, oldest first. */
+    static List<Stall> stalls() {
+        synchronized (log) {
+            return new ArrayList<>(log);
+        }
+    }
+
+    /** Writes the stall log as text, one block per stall with its sampled stack. */
+    static void export(Writer out) {
+        PrintWriter pw = new PrintWriter(out);
+        pw.printf("stall threshold %d ms, worst dispatch %.1f ms%n", STALL_NANOS / 1_000_000, worstStall() / 1e6);
+        for (Stall s : stalls()) {
+            pw.printf("%n%s  %.1f ms  %s%n", s.at(), s.nanos() / 1e6, s.event());
+            for (StackTraceElement e : s.stack())
+                pw.println("    at " + e);
+        }
+        pw.flush();
+    }
+
+    private static void finish(AWTEvent e, long id, long total, long nanos) {
+        worstStall.accumulateAndGet(nanos, Math::max);
+        if (nanos < STALL_NANOS)
+            return;
+        StackTraceElement[] stack = sampledId == id ? sample : new StackTraceElement[0];
+        Stall s = new Stall(Instant.now().minusNanos(total), nanos, e.getClass().getSimpleName(), stack);
+        synchronized (log) {
+            if (log.size() == LOG_SIZE)
+                log.removeFirst();
+            log.addLast(s);
+        }
+    }
+
+    private static void sample() {
+        try {
+            while (true) {
+                Thread.sleep(POLL_MILLIS);
+                long id = currentId;
+                long since = current;
+                Thread t = edt;
+                if (since == 0 || t == null || id == sampledId || System.nanoTime() - since < STALL_NANOS)
+                    continue;
+                sample = t.getStackTrace();
+                sampledId = id;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static final class TimedQueue extends EventQueue {
+        @Override
+        protected void dispatchEvent(AWTEvent e) {
+            edt = Thread.currentThread();
+            long outerId = currentId;
+            long outerExcluded = excluded;
+            long id = ++lastId;
+            excluded = 0;
+            depth++;
+            long start = System.nanoTime();
+            currentId = id;
+            current = start;
+            try {
+                super.dispatchEvent(e);
+            } finally {
+                long end = System.nanoTime();
+                finish(e, id, end - start, end - start - excluded);
+                excluded = outerExcluded + (end - start);
+                depth--;
+                currentId = outerId;
+                current = depth > 0 ? end : 0;
+            }
+        }
+
+        @Override
+        public AWTEvent getNextEvent() throws InterruptedException {
+            // waiting here is idle, even inside a modal dialog's event loop
+            long waitStart = System.nanoTime();
+            current = 0;
+            try {
+                return super.getNextEvent();
+            } finally {
+                long now = System.nanoTime();
+                if (depth > 0) {
+                    excluded += now - waitStart;
+                    current = now;
+                }
+            }
+        }
+    }
+
+    private static final class TimedRepaintManager extends RepaintManager {
+        @Override
+        public void paintDirtyRegions() {
+            long start = System.nanoTime();
+            super.paintDirtyRegions();
+            worstFrame.accumulateAndGet(System.nanoTime() - start, Math::max);
+        }
+    }
+}
@@ -0,0 +1,124 @@
+package com.guptadevagya.wafflegame;
+
+/**
+ * Incremental hint evaluation for a waffle board.
+ *
+ * Keeps, for each word, a histogram of the solution letters that
+ * are not yet in place, plus the resulting set of yellow (wrong position)
+ * cells. A swap only marks the words that contain the two swapped cells as
+ * dirty; they are re-evaluated lazily on the next {@link #fill(Hint[][])}.
+ * Nothing is allocated after construction.
+ */
+final class HintEngine {
+    private static final int LETTERS = 27; // letter codes 1..26, 0 = empty
+
+    private Board puzzle;
+    private Board solution;
+    private Layout layout = Layout.STANDARD;
+
+    // bit per cell, set when the puzzle letter equals the solution letter
+    private long correct;
+    // unmatched solution letters per word, indexed word * LETTERS + code
+    private int[] unmatched = new int[layout.words() * LETTERS];
+    // per word, bitmask of its cells that are WRONG_POSITION
+    private long[] present = new long[layout.words()];
+    private final int[] scratch = new int[LETTERS];
+    private int dirty;
+
+    /** Rebinds to the given boards and rebuilds all state from scratch; buffers are reallocated only for a new layout. */
+    void reset(Board puzzle, Board solution) {
+        this.puzzle = puzzle;
+        this.solution = solution;
+        if (puzzle.layout() != layout) {
+            layout = puzzle.layout();
+            unmatched = new int[layout.words() * LETTERS];
+            present = new long[layout.words()];
+        }
+        java.util.Arrays.fill(unmatched, 0);
+        correct = ~puzzle.diffMask(solution) & layout.allCells();
+        for (int cell = 0; cell < layout.cells(); cell++) {
+            if ((correct & (1L << cell)) == 0)
+                adjust(cell, +1);
+        }
+        dirty = (1 << layout.words()) - 1;
+    }
+
+    /** Must be called after the letters at cells {@code a} and {@code b} have been exchanged. */
+    void swapped(int a, int b) {
+        refresh(a);
+        if (b != a)
+            refresh(b);
+        dirty |= layout.cellWords(a) | layout.cellWords(b);
+    }
+
+    /** Bitmask of the cells currently marked WRONG_POSITION. */
+    long presentMask() {
+        for (int w = 0; dirty != 0; w++, dirty >>>= 1) {
+            if ((dirty & 1) != 0)
+                evaluate(w);
+        }
+        long mask = 0;
+        for (long p : present)
+            mask |= p;
+        return mask;
+    }
+
+    /** Bitmask of the cells currently CORRECT. */
+    long correctMask() {
+        return correct;
+    }
+
+    /** Writes the hint for every grid position into {@code hints}, re-evaluating dirty words first. */
+    void fill(Hint[][] hints) {
+        long yellow = presentMask();
+        for (int r = 0; r < layout.size(); r++) {
+            for (int c = 0; c < layout.size(); c++) {
+                int cell = layout.cell(r, c);
+                if (cell < 0 || solution.get(cell) == 0)
+                    hints[r][c] = Hint.BLANK;
+                else if ((correct & (1L << cell)) != 0)
+                    hints[r][c] = Hint.CORRECT;
+                else if ((yellow & (1L << cell)) != 0)
+                    hints[r][c] = Hint.WRONG_POSITION;
+                else
+                    hints[r][c] = Hint.NOT_IN_WORD;
+            }
+        }
+    }
+
+    // Same left-to-right greedy matching as the original list-based version:
+    // each misplaced cell claims one unmatched copy of its letter, if any is left.
+    private void evaluate(int w) {
+        System.arraycopy(unmatched, w * LETTERS, scratch, 0, LETTERS);
+        long mask = 0;
+        for (int cell : layout.wordCells(w)) {
+            if ((correct & (1L << cell)) != 0)
+                continue;
+            int l = puzzle.get(cell);
+            if (l != 0 && scratch[l] > 0) {
+                scratch[l]--;
+                mask |= 1L << cell;
+            }
+        }
+        present[w] = mask;
+    }
+
+    private void refresh(int cell) {
+        long bit = 1L << cell;
+        boolean now = puzzle.get(cell) == solution.get(cell);
+        if (now == ((correct & bit) != 0))
+            return;
+        correct ^= bit;
+        adjust(cell, now ? -1 : +1);
+    }
+
+    private void adjust(int cell, int delta) {
+        int l = solution.get(cell);
+        if (l == 0)
+            return;
+        for (int words = layout.cellWords(cell), w = 0; words != 0; w++, words >>>= 1) {
+            if ((words & 1) != 0)
+                unmatched[w * LETTERS + l] += delta;
+        }
+    }
+}
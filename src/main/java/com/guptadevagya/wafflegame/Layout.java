@@ -0,0 +1,144 @@
+package com.guptadevagya.wafflegame;
+
+/**
+ * Geometry of an n x n waffle, n odd: full rows and columns at even
+ * indexes, holes where an odd row meets an odd column. There are
+ * {@code n + 1} words of {@code n} letters, rows top to bottom then columns
+ * left to right, and {@code (n + 1) / 2 * n + (n - 1) / 2 * (n + 1) / 2}
+ * letter cells, numbered row by row skipping the holes.
+ *
+ * The standard game is 5x5 (21 cells, 6 words); 7x7 has 40 cells and 8
+ * words. Cell sets are handled as long bitmasks, so at most 64 cells, which
+ * allows sizes 3, 5 and 7. Layouts are shared: {@link #of(int)} returns one
+ * instance per size, so they compare by identity.
+ */
+final class Layout {
+    static final int MAX_CELLS = 64;
+    static final int MAX_SIZE = 7;
+
+    private static final Layout[] BY_SIZE = new Layout[MAX_SIZE + 1];
+
+    static {
+        for (int size = 3; size <= MAX_SIZE; size += 2)
+            BY_SIZE[size] = new Layout(size);
+    }
+
+    static final Layout STANDARD = of(5);
+
+    private final int size;
+    private final int cells;
+    private final int words;
+    private final int[] cellRow;
+    private final int[] cellCol;
+    /** Cell index for r * size + c, or -1 for a hole. */
+    private final int[] gridCell;
+    private final int[][] wordCells;
+    private final int[] cellWords;
+    private final int[] transpose;
+
+    private Layout(int size) {
+        this.size = size;
+        this.words = size + 1;
+        int half = (size + 1) / 2;
+        this.cells = half * size + (size - half) * half;
+        this.cellRow = new int[cells];
+        this.cellCol = new int[cells];
+        this.gridCell = new int[size * size];
+        this.wordCells = new int[words][size];
+        this.cellWords = new int[cells];
+        this.transpose = new int[cells];
+
+        int cell = 0;
+        for (int r = 0; r < size; r++) {
+            for (int c = 0; c < size; c++) {
+                if (r % 2 == 1 && c % 2 == 1) {
+                    gridCell[r * size + c] = -1;
+                    continue;
+                }
+                gridCell[r * size + c] = cell;
+                cellRow[cell] = r;
+                cellCol[cell] = c;
+                cell++;
+            }
+        }
+        for (int i = 0; i < cells; i++)
+            transpose[i] = gridCell[cellCol[i] * size + cellRow[i]];
+        for (int w = 0; w < half; w++) {
+            for (int i = 0; i < size; i++) {
+                int rowCell = gridCell[(2 * w) * size + i];
+                int colCell = gridCell[i * size + 2 * w];
+                wordCells[w][i] = rowCell;
+                wordCells[half + w][i] = colCell;
+                cellWords[rowCell] |= 1 << w;
+                cellWords[colCell] |= 1 << (half + w);
+            }
+        }
+    }
+
+    /** The layout of an n x n waffle; throws unless n is 3, 5 or 7. */
+    static Layout of(int size) {
+        if (!isSupported(size))
+            throw new IllegalArgumentException("unsupported waffle size " + size + " (3, 5 or 7)");
+        return BY_SIZE[size];
+    }
+
+    static boolean isSupported(int size) {
+        return size >= 0 && size < BY_SIZE.length && BY_SIZE[size] != null;
+    }
+
+    int size() {
+        return size;
+    }
+
+    int cells() {
+        return cells;
+    }
+
+    int words() {
+        return words;
+    }
+
+    int wordLength() {
+        return size;
+    }
+
+    int row(int cell) {
+        return cellRow[cell];
+    }
+
+    int col(int cell) {
+        return cellCol[cell];
+    }
+
+    /** Cell index of (r, c), or -1 if it is a hole or out of bounds. */
+    int cell(int r, int c) {
+        if (r < 0 || r >= size || c < 0 || c >= size)
+            return -1;
+        return gridCell[r * size + c];
+    }
+
+    /** Cells of word {@code w} in reading order; shared, don't modify. */
+    int[] wordCells(int w) {
+        return wordCells[w];
+    }
+
+    /** Bitmask of the words cell {@code cell} belongs to. */
+    int cellWords(int cell) {
+        return cellWords[cell];
+    }
+
+    /** Cell that {@code cell} maps to under the main-diagonal mirror. */
+    int transpose(int cell) {
+        return transpose[cell];
+    }
+
+    /** Bitmask with one bit per cell. */
+    long allCells() {
+        return cells == 64 ? -1L : (1L << cells) - 1;
+    }
+
+    @Override
+    public String toString() {
+        return size + "x" + size;
+    }
+}
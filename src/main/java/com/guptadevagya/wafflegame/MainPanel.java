@@ -8,16 +8,44 @@ import javax.swing.*;
 import javax.swing.border.EmptyBorder;
 import java.awt.*;
 import java.awt.event.*;
+import java.awt.geom.AffineTransform;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.util.ArrayDeque;
+import java.util.ArrayList;
 import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 
 class MainPanel extends JPanel {
 
     private static final Font TILE_FONT = new Font("Inter", Font.BOLD, 28);
 
-    private static final String SND_CLICK = "sounds/click.wav";
-    private static final String SND_SWAP = "sounds/swap.wav";
-    private static final String SND_DONE = "sounds/complete.wav";
+    // the advisor runs on the EDT, so keep it well under a frame or two
+    private static final long HINT_BUDGET_NANOS = 5_000_000;
+
+    // tile colour fades: FADE_STEPS frames over FADE_MS
+    private static final int FADE_MS = 220;
+    private static final int FADE_STEPS = 11;
+    private static final long FRAME_NANOS = FADE_MS * 1_000_000L / FADE_STEPS;
+
+    // fade ramps, and hover shades of the settled (palette) face colours;
+    // built on first use, EDT only
+    private static final Map<Long, Color[]> RAMPS = new HashMap<>();
+    private static final Map<Color, Color> HOVER = new HashMap<>();
+    private static final float HOVER_LIGHTEN = 0.06f;
+
+    private static final int TILE_ARC = 18;
+    private static final Stroke SELECT_STROKE = new BasicStroke(3.5f);
+    private static final Stroke HINT_STROKE = new BasicStroke(3.5f, BasicStroke.CAP_ROUND, BasicStroke.JOIN_ROUND, 1f,
+            new float[] { 8f, 6f }, 0f);
+    // enough for every settled look on the board several times over
+    private static final int MAX_TILE_IMAGES = 256;
 
     private final transient WaffleGame game;
 
@@ -27,14 +55,27 @@ class MainPanel extends JPanel {
     private final JLabel swapsLabel = new JLabel("", SwingConstants.LEFT);
     private final JLabel correctLabel = new JLabel("", SwingConstants.RIGHT);
     private final JLabel timerLabel = new JLabel("00:00", SwingConstants.CENTER);
+    // the current puzzle's share code, blank for puzzles without one
+    private final JLabel codeLabel = new JLabel("", SwingConstants.CENTER);
+
+    // performance overlay (F3), refreshed a few times a second while shown
+    private final JLabel hudLabel = new JLabel("", SwingConstants.CENTER);
+    private final javax.swing.Timer hudTimer = new javax.swing.Timer(250, _ -> refreshHud());
 
     private javax.swing.Timer timer;
+    private final transient Animator animator = new Animator();
+    private JPanel grid;
     private boolean darkMode;
 
+    // settled tiles are drawn from here; cleared on theme change and resize
+    private final transient Map<TileLook, Image> tileImages = new LinkedHashMap<>(64, 0.75f, true);
+
     private final Deque<int[]> undo = new ArrayDeque<>();
     private final Deque<int[]> redo = new ArrayDeque<>();
 
     private Tile selected = null;
+    private Tile hintA = null;
+    private Tile hintB = null;
     private JToolBar toolbar;
 
     MainPanel(WaffleGame game) {
@@ -69,6 +110,9 @@ class MainPanel extends JPanel {
         im.put(KeyStroke.getKeyStroke(KeyEvent.VK_R, 0), "random");
         im.put(KeyStroke.getKeyStroke(KeyEvent.VK_D, 0), "dark");
         im.put(KeyStroke.getKeyStroke(KeyEvent.VK_G, 0), "giveup");
+        im.put(KeyStroke.getKeyStroke(KeyEvent.VK_H, 0), "hint");
+        im.put(KeyStroke.getKeyStroke(KeyEvent.VK_F3, 0), "hud");
+        im.put(KeyStroke.getKeyStroke(KeyEvent.VK_F3, InputEvent.SHIFT_DOWN_MASK), "stalls");
 
         am.put("undo", new AbstractAction() {
             public void actionPerformed(ActionEvent e) {
@@ -95,6 +139,21 @@ class MainPanel extends JPanel {
                 doGiveUp();
             }
         });
+        am.put("hint", new AbstractAction() {
+            public void actionPerformed(ActionEvent e) {
+                doHint();
+            }
+        });
+        am.put("hud", new AbstractAction() {
+            public void actionPerformed(ActionEvent e) {
+                toggleHud();
+            }
+        });
+        am.put("stalls", new AbstractAction() {
+            public void actionPerformed(ActionEvent e) {
+                exportStalls();
+            }
+        });
     }
 
     private JToolBar buildToolbar() {
@@ -112,20 +171,29 @@ class MainPanel extends JPanel {
         JButton redoBtn = new JButton("Redo");
         redoBtn.addActionListener(_ -> doRedo());
 
+        JButton hintBtn = new JButton("Hint");
+        hintBtn.addActionListener(_ -> doHint());
+
         JButton giveUpBtn = new JButton("Give up");
         giveUpBtn.addActionListener(_ -> doGiveUp());
 
+        JButton codeBtn = new JButton("Code…");
+        codeBtn.addActionListener(_ -> doCode());
+
         JToggleButton dark = new JToggleButton("Dark", darkMode);
         dark.addActionListener(_ -> toggleDark());
 
         toolbar.add(rndBtn);
+        toolbar.add(codeBtn);
         toolbar.addSeparator();
         toolbar.add(undoBtn);
         toolbar.add(redoBtn);
+        toolbar.add(hintBtn);
         toolbar.add(giveUpBtn);
         toolbar.addSeparator();
         toolbar.add(new JLabel("  Time: "));
         toolbar.add(timerLabel);
+        toolbar.add(codeLabel);
         toolbar.add(Box.createHorizontalGlue());
         toolbar.add(dark);
         return toolbar;
@@ -138,6 +206,9 @@ class MainPanel extends JPanel {
         swapsLabel.setForeground(Theme.TEXT);
         correctLabel.setForeground(Theme.TEXT);
         timerLabel.setForeground(Theme.TEXT);
+        codeLabel.setForeground(Theme.TEXT);
+        hudLabel.setForeground(Theme.TEXT);
+        tileImages.clear();
         for (Tile[] row : tiles)
             for (Tile t : row)
                 t.refreshTheme();
@@ -163,7 +234,26 @@ class MainPanel extends JPanel {
             clearSelection();
             redo.clear();
             undo.clear();
-            game.resetToRandom();
+            game.reset(PuzzleBank.shared().take());
+            startTimer();
+            updatePanel();
+        } catch (RuntimeException ex) {
+            showError(ex);
+        }
+    }
+
+    /** Shows the current puzzle's code to copy, and plays a code typed in its place. */
+    private void doCode() {
+        String current = game.getPuzzleCode();
+        Object typed = JOptionPane.showInputDialog(this, "Share this code, or enter another to play its puzzle:",
+                "Puzzle code", JOptionPane.PLAIN_MESSAGE, null, null, current == null ? "" : current);
+        if (typed == null || typed.toString().isBlank() || typed.toString().equals(current))
+            return;
+        try {
+            game.resetToCode(typed.toString());
+            clearSelection();
+            redo.clear();
+            undo.clear();
             startTimer();
             updatePanel();
         } catch (RuntimeException ex) {
@@ -172,9 +262,15 @@ class MainPanel extends JPanel {
     }
 
     private JPanel buildGrid() {
-        JPanel grid = new JPanel(new GridLayout(WaffleGame.WAFFLE_SIZE, WaffleGame.WAFFLE_SIZE, 8, 8));
+        grid = new JPanel(new GridLayout(WaffleGame.WAFFLE_SIZE, WaffleGame.WAFFLE_SIZE, 8, 8));
         grid.setBorder(new EmptyBorder(12, 12, 12, 12));
         grid.setOpaque(false);
+        grid.addComponentListener(new ComponentAdapter() {
+            @Override
+            public void componentResized(ComponentEvent e) {
+                tileImages.clear();
+            }
+        });
 
         for (int r = 0; r < WaffleGame.WAFFLE_SIZE; r++) {
             for (int c = 0; c < WaffleGame.WAFFLE_SIZE; c++) {
@@ -193,6 +289,9 @@ class MainPanel extends JPanel {
         swapsLabel.setFont(swapsLabel.getFont().deriveFont(Font.BOLD));
         status.add(swapsLabel, BorderLayout.WEST);
         status.add(correctLabel, BorderLayout.EAST);
+        hudLabel.setFont(hudLabel.getFont().deriveFont(11f));
+        hudLabel.setVisible(false);
+        status.add(hudLabel, BorderLayout.CENTER);
         return status;
     }
 
@@ -207,6 +306,36 @@ class MainPanel extends JPanel {
         timer.start();
     }
 
+    private void toggleHud() {
+        boolean on = !hudLabel.isVisible();
+        if (on) {
+            refreshHud();
+            hudTimer.start();
+        } else {
+            hudTimer.stop();
+        }
+        hudLabel.setVisible(on);
+    }
+
+    private void refreshHud() {
+        // generation time as the bank's producers see it; taking from the bank is only a poll
+        hudLabel.setText(String.format("frame %.1f ms · generation %.1f ms · worst stall %.0f ms (%d logged)",
+                EdtWatchdog.takeWorstFrame() / 1e6, PuzzleBank.shared().lastGenerationNanos() / 1e6,
+                EdtWatchdog.worstStall() / 1e6, EdtWatchdog.stalls().size()));
+    }
+
+    private void exportStalls() {
+        JFileChooser chooser = new JFileChooser();
+        chooser.setSelectedFile(new java.io.File("waffle-stalls.txt"));
+        if (chooser.showSaveDialog(this) != JFileChooser.APPROVE_OPTION)
+            return;
+        try (Writer out = Files.newBufferedWriter(chooser.getSelectedFile().toPath(), StandardCharsets.UTF_8)) {
+            EdtWatchdog.export(out);
+        } catch (IOException e) {
+            showError(e);
+        }
+    }
+
     private void doUndo() {
         if (undo.isEmpty())
             return;
@@ -214,7 +343,8 @@ class MainPanel extends JPanel {
         if (game.swapNoCost(m[2], m[3], m[0], m[1])) {
             game.adjustSwaps(+1);
             redo.push(m);
-            Sound.play(SND_SWAP);
+            Metrics.UNDOS.increment();
+            Sound.SWAP.play();
             updatePanel();
         }
     }
@@ -226,11 +356,35 @@ class MainPanel extends JPanel {
         if (game.swapNoCost(m[0], m[1], m[2], m[3])) {
             game.adjustSwaps(-1);
             undo.push(m);
-            Sound.play(SND_SWAP);
+            Metrics.REDOS.increment();
+            Sound.SWAP.play();
             updatePanel();
         }
     }
 
+    private void doHint() {
+        if (game.isCompleted() || game.isGaveUp() || game.getSwapsRemaining() <= 0)
+            return;
+        SwapAdvisor.Suggestion s = game.suggestSwap(HINT_BUDGET_NANOS);
+        if (s.first() < 0)
+            return;
+        clearHint();
+        hintA = tiles[Board.CELL_ROW[s.first()]][Board.CELL_COL[s.first()]];
+        hintB = tiles[Board.CELL_ROW[s.second()]][Board.CELL_COL[s.second()]];
+        hintA.setHinted(true);
+        hintB.setHinted(true);
+        Sound.CLICK.play();
+    }
+
+    private void clearHint() {
+        if (hintA != null) {
+            hintA.setHinted(false);
+            hintB.setHinted(false);
+            hintA = null;
+            hintB = null;
+        }
+    }
+
     private void doGiveUp() {
         int choice = JOptionPane.showConfirmDialog(
                 this, "Reveal the solution and end this game?",
@@ -243,7 +397,7 @@ class MainPanel extends JPanel {
         redo.clear();
 
         game.revealSolution();
-        Sound.play(SND_DONE);
+        Sound.COMPLETE.play();
         if (timer != null)
             timer.stop();
         updatePanel();
@@ -263,8 +417,11 @@ class MainPanel extends JPanel {
 
     // -------------------- update / render --------------------
     void updatePanel() {
+        clearHint();
         int correct = refreshTilesAndCounts();
         swapsLabel.setText(game.getSwapsRemaining() + " swaps left");
+        String code = game.getPuzzleCode();
+        codeLabel.setText(code == null ? "" : "   Code: " + code);
         correctLabel.setText(correct + " / 25 correct");
         handleEndOfGame();
         repaint();
@@ -282,15 +439,9 @@ class MainPanel extends JPanel {
                 t.setLetter(letter);
                 t.setEnabled(letter != ' ');
 
-                switch (hints[r][c]) {
-                    case CORRECT -> {
-                        t.animateTo(Theme.CORRECT);
-                        correct++;
-                    }
-                    case WRONG_POSITION -> t.animateTo(Theme.PRESENT);
-                    case NOT_IN_WORD -> t.animateTo(Theme.ABSENT);
-                    case BLANK -> t.animateTo(Theme.BLANK);
-                }
+                t.animateTo(hints[r][c]);
+                if (hints[r][c] == Hint.CORRECT)
+                    correct++;
             }
         }
         return correct;
@@ -322,12 +473,12 @@ class MainPanel extends JPanel {
         undo.clear();
         redo.clear();
         game.revealSolution();
-        Sound.play(SND_DONE);
+        Sound.COMPLETE.play();
         char[][] g = game.getPuzzleGrid();
         for (int r = 0; r < WaffleGame.WAFFLE_SIZE; r++) {
             for (int c = 0; c < WaffleGame.WAFFLE_SIZE; c++) {
                 tiles[r][c].setLetter(g[r][c]);
-                tiles[r][c].animateTo(Theme.CORRECT);
+                tiles[r][c].animateTo(Hint.CORRECT);
             }
         }
     }
@@ -351,20 +502,147 @@ class MainPanel extends JPanel {
         return "No swaps remaining.";
     }
 
+    // -------------------- animation --------------------
+
+    /**
+     * The frame clock for every tile fade. Each tick moves all fading tiles
+     * to the frame for the current time, so a slow machine drops frames
+     * rather than stretching the fade, repaints their union once, and the
+     * clock stops when nothing is moving.
+     */
+    private final class Animator {
+        private final javax.swing.Timer clock = new javax.swing.Timer((int) (FRAME_NANOS / 1_000_000), _ -> tick());
+        private final List<Tile> moving = new ArrayList<>();
+        private final Rectangle dirty = new Rectangle();
+        private final Rectangle bounds = new Rectangle();
+
+        void start(Tile t) {
+            if (!moving.contains(t))
+                moving.add(t);
+            if (!clock.isRunning()) {
+                clock.start();
+                tick();
+            }
+        }
+
+        private void tick() {
+            long now = System.nanoTime();
+            dirty.setSize(0, 0);
+            for (int i = moving.size() - 1; i >= 0; i--) {
+                Tile t = moving.get(i);
+                if (!t.step(now))
+                    moving.remove(i);
+                t.getBounds(bounds);
+                if (dirty.isEmpty())
+                    dirty.setBounds(bounds);
+                else
+                    dirty.add(bounds);
+            }
+            if (!dirty.isEmpty())
+                grid.repaint(dirty);
+            if (moving.isEmpty())
+                clock.stop();
+        }
+    }
+
+    /** The {@link #FADE_STEPS} colours of a fade from {@code a} to {@code b}, shared by every tile. */
+    private static Color[] ramp(Color a, Color b) {
+        // a fade cut short starts from one of these colours, so the cache stays small
+        if (RAMPS.size() > 1024)
+            RAMPS.clear();
+        long key = (long) a.getRGB() << 32 | (b.getRGB() & 0xFFFFFFFFL);
+        return RAMPS.computeIfAbsent(key, _ -> {
+            Color[] steps = new Color[FADE_STEPS];
+            for (int i = 0; i < FADE_STEPS; i++)
+                steps[i] = blend(a, b, i / (float) FADE_STEPS);
+            return steps;
+        });
+    }
+
+    private static Color blend(Color a, Color b, float t) {
+        int rr = (int) (a.getRed() + t * (b.getRed() - a.getRed()));
+        int gg = (int) (a.getGreen() + t * (b.getGreen() - a.getGreen()));
+        int bb = (int) (a.getBlue() + t * (b.getBlue() - a.getBlue()));
+        return new Color(rr, gg, bb);
+    }
+
+    // -------------------- tile images --------------------
+
+    /** Everything that changes how a tile looks; the palette is fixed by {@code dark}. */
+    private record TileLook(boolean dark, int w, int h, double scaleX, double scaleY,
+            int face, char letter, boolean selected, boolean hinted) {
+    }
+
+    /** The image for {@code look} at the device scale, rendering it on first use. */
+    private Image tileImage(TileLook look, GraphicsConfiguration gc) {
+        Image img = tileImages.get(look);
+        if (img != null)
+            return img;
+        int iw = (int) Math.ceil(look.w() * look.scaleX());
+        int ih = (int) Math.ceil(look.h() * look.scaleY());
+        BufferedImage b = gc != null
+                ? gc.createCompatibleImage(iw, ih, Transparency.TRANSLUCENT)
+                : new BufferedImage(iw, ih, BufferedImage.TYPE_INT_ARGB);
+        Graphics2D g2 = b.createGraphics();
+        g2.scale(look.scaleX(), look.scaleY());
+        paintTile(g2, look.w(), look.h(), new Color(look.face()), look.letter(), look.selected(), look.hinted());
+        g2.dispose();
+        if (tileImages.size() >= MAX_TILE_IMAGES)
+            tileImages.remove(tileImages.keySet().iterator().next());
+        tileImages.put(look, b);
+        return b;
+    }
+
+    private static void paintTile(Graphics2D g2, int w, int h, Color face, char letter,
+            boolean selected, boolean hinted) {
+        g2.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+
+        // shadow
+        g2.setColor(Theme.SHADOW);
+        g2.fillRoundRect(3, 6, w - 6, h - 9, TILE_ARC, TILE_ARC);
+
+        g2.setColor(face);
+        g2.fillRoundRect(3, 3, w - 6, h - 9, TILE_ARC, TILE_ARC);
+
+        if (selected) {
+            g2.setStroke(SELECT_STROKE);
+            g2.setColor(Theme.SELECT);
+            g2.drawRoundRect(3, 3, w - 6, h - 9, TILE_ARC, TILE_ARC);
+        } else if (hinted) {
+            g2.setStroke(HINT_STROKE);
+            g2.setColor(Theme.HINT);
+            g2.drawRoundRect(3, 3, w - 6, h - 9, TILE_ARC, TILE_ARC);
+        }
+
+        if (letter != ' ') {
+            g2.setColor(Theme.TEXT);
+            g2.setFont(TILE_FONT);
+            FontMetrics fm = g2.getFontMetrics();
+            String s = String.valueOf(letter);
+            int x = (w - fm.stringWidth(s)) / 2;
+            int y = (h + fm.getAscent() - fm.getDescent()) / 2 - 2;
+            g2.drawString(s, x, y);
+        }
+    }
+
     // -------------------- Tile --------------------
     private class Tile extends JComponent {
         final int r;
         final int c;
 
         private char letter = ' ';
+        private Hint kind;
         private Color current = Theme.ABSENT;
         private Color target = Theme.ABSENT;
 
+        // the running fade, if any: its colours and start time
+        private Color[] fade;
+        private long fadeStart;
+
         private boolean selectedState = false;
+        private boolean hinted = false;
         private boolean hover = false;
 
-        private javax.swing.Timer anim;
-
         Tile(int r, int c) {
             this.r = r;
             this.c = c;
@@ -377,7 +655,7 @@ class MainPanel extends JPanel {
                 public void mousePressed(MouseEvent e) {
                     if (!isEnabled() || letter == ' ')
                         return;
-                    Sound.play(SND_CLICK);
+                    Sound.CLICK.play();
                     if (selected == null) {
                         selected = Tile.this;
                         setSelected(true);
@@ -407,6 +685,9 @@ class MainPanel extends JPanel {
         }
 
         void refreshTheme() {
+            // fade to the same state in the new palette
+            if (kind != null)
+                animateTo(kind);
             repaint();
         }
 
@@ -420,33 +701,37 @@ class MainPanel extends JPanel {
             repaint();
         }
 
-        void animateTo(Color to) {
+        void setHinted(boolean on) {
+            this.hinted = on;
+            repaint();
+        }
+
+        void animateTo(Hint h) {
+            kind = h;
+            Color to = switch (h) {
+                case CORRECT -> Theme.CORRECT;
+                case WRONG_POSITION -> Theme.PRESENT;
+                case NOT_IN_WORD -> Theme.ABSENT;
+                case BLANK -> Theme.BLANK;
+            };
             if (to.equals(target))
                 return;
             target = to;
-            if (anim != null && anim.isRunning())
-                anim.stop();
-
-            final Color from = (current == null) ? Theme.TILE_FACE : current;
-            final int ms = 220;
-            final int steps = 11;
-
-            anim = new javax.swing.Timer(ms / steps, null);
-            anim.addActionListener(new ActionListener() {
-                int i = 0;
+            fade = ramp(current == null ? Theme.TILE_FACE : current, to);
+            fadeStart = System.nanoTime();
+            animator.start(this);
+        }
 
-                @Override
-                public void actionPerformed(ActionEvent e) {
-                    float t = i++ / (float) steps;
-                    // clamp without nested ternary (Sonar-friendly)
-                    t = Math.clamp(t, 0f, 1f);
-                    current = blend(from, target, t);
-                    repaint();
-                    if (i > steps)
-                        anim.stop();
-                }
-            });
-            anim.start();
+        /** Shows the fade frame for {@code now}; false once the tile has reached its target. */
+        boolean step(long now) {
+            long frame = (now - fadeStart) / FRAME_NANOS;
+            if (frame >= FADE_STEPS) {
+                current = target;
+                fade = null;
+                return false;
+            }
+            current = fade[(int) frame];
+            return true;
         }
 
         private void trySwap(Tile a, Tile b) {
@@ -455,18 +740,11 @@ class MainPanel extends JPanel {
             redo.clear();
             if (game.swap(a.r, a.c, b.r, b.c)) { // consumes one
                 undo.push(new int[] { a.r, a.c, b.r, b.c });
-                Sound.play(SND_SWAP);
+                Sound.SWAP.play();
                 updatePanel();
             }
         }
 
-        private Color blend(Color a, Color b, float t) {
-            int rr = (int) (a.getRed() + t * (b.getRed() - a.getRed()));
-            int gg = (int) (a.getGreen() + t * (b.getGreen() - a.getGreen()));
-            int bb = (int) (a.getBlue() + t * (b.getBlue() - a.getBlue()));
-            return new Color(rr, gg, bb);
-        }
-
         @Override
         public void setEnabled(boolean enabled) {
             super.setEnabled(enabled);
@@ -475,16 +753,8 @@ class MainPanel extends JPanel {
 
         @Override
         protected void paintComponent(Graphics g) {
-            Graphics2D g2 = (Graphics2D) g.create();
-            g2.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
-
             int w = getWidth();
             int h = getHeight();
-            int arc = 18;
-
-            // shadow
-            g2.setColor(Theme.SHADOW);
-            g2.fillRoundRect(3, 6, w - 6, h - 9, arc, arc);
 
             // face (no nested ternaries)
             Color face;
@@ -496,28 +766,23 @@ class MainPanel extends JPanel {
                 face = Theme.TILE_FACE;
 
             if (hover && isEnabled() && letter != ' ') {
-                face = blend(face, Color.WHITE, 0.06f);
+                // only settled faces are cached: the palette's few colours, not every fade frame
+                face = fade != null ? blend(face, Color.WHITE, HOVER_LIGHTEN)
+                        : HOVER.computeIfAbsent(face, f -> blend(f, Color.WHITE, HOVER_LIGHTEN));
             }
 
-            g2.setColor(face);
-            g2.fillRoundRect(3, 3, w - 6, h - 9, arc, arc);
-
-            if (selectedState) {
-                g2.setStroke(new BasicStroke(3.5f));
-                g2.setColor(Theme.SELECT);
-                g2.drawRoundRect(3, 3, w - 6, h - 9, arc, arc);
-            }
-
-            if (letter != ' ') {
-                g2.setColor(Theme.TEXT);
-                g2.setFont(TILE_FONT);
-                FontMetrics fm = g2.getFontMetrics();
-                String s = String.valueOf(letter);
-                int x = (w - fm.stringWidth(s)) / 2;
-                int y = (h + fm.getAscent() - fm.getDescent()) / 2 - 2;
-                g2.drawString(s, x, y);
+            Graphics2D g2 = (Graphics2D) g;
+            if (fade != null) {
+                // each fade frame is shown once, so caching it would only add work
+                Graphics2D fg = (Graphics2D) g.create();
+                paintTile(fg, w, h, face, letter, selectedState, hinted);
+                fg.dispose();
+                return;
             }
-            g2.dispose();
+            AffineTransform at = g2.getTransform();
+            TileLook look = new TileLook(darkMode, w, h, at.getScaleX(), at.getScaleY(),
+                    face.getRGB(), letter, selectedState, hinted);
+            g2.drawImage(tileImage(look, getGraphicsConfiguration()), 0, 0, w, h, null);
         }
     }
 }
\ No newline at end of file
@@ -0,0 +1,247 @@
+package com.guptadevagya.wafflegame;
+
+import javax.management.Attribute;
+import javax.management.AttributeList;
+import javax.management.AttributeNotFoundException;
+import javax.management.DynamicMBean;
+import javax.management.InstanceAlreadyExistsException;
+import javax.management.JMException;
+import javax.management.MBeanAttributeInfo;
+import javax.management.MBeanInfo;
+import javax.management.ObjectName;
+import javax.management.ReflectionException;
+import java.lang.management.ManagementFactory;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Process-wide counters and latency histograms for the engine's hot paths.
+ * Both are built on LongAdder, so threads updating the same metric don't
+ * contend; recording is a couple of adds and never allocates.
+ *
+ * {@link #publish()} exposes every metric as an attribute of one MBean,
+ * {@value #OBJECT_NAME}, for JConsole or any other JMX client.
+ */
+final class Metrics {
+    static final String OBJECT_NAME = "com.guptadevagya.wafflegame:type=Metrics";
+
+    // registration order is attribute order; must come before the metrics below
+    private static final Map<String, Counter> COUNTERS = new LinkedHashMap<>();
+    private static final Map<String, Histogram> HISTOGRAMS = new LinkedHashMap<>();
+
+    static final Histogram GENERATION = histogram("generation", "time to build one solution board");
+    static final Counter GENERATION_PLACEMENTS = counter("generation.placements", "words placed by the generator's search");
+    static final Counter GENERATION_BACKTRACKS = counter("generation.backtracks", "placements beyond one per word, i.e. retries");
+    static final Counter SCRAMBLE_REROLLS = counter("scramble.rerolls", "scrambles thrown away as solved or not unique");
+    static final Counter SCRAMBLE_PINS = counter("scramble.pins", "cells turned green to make a scramble unique");
+    static final Histogram HINTS = histogram("hints", "time of one identifyHints call");
+    static final Histogram DICTIONARY_LOAD = histogram("dictionary.load", "time to read a word list");
+    static final Counter SWAPS = counter("swaps", "swaps played, counting only ones that cost a swap");
+    static final Counter UNDOS = counter("undos", "swaps taken back");
+    static final Counter REDOS = counter("redos", "swaps played again after an undo");
+    static final Counter BANK_FAILURES = counter("bank.failures", "puzzle bank generation attempts that threw");
+    static final Counter SOUND_FAILURES = counter("sound.failures", "effects that couldn't be decoded, or no audio line");
+    static final Counter SOUND_DROPPED = counter("sound.dropped", "plays dropped because the audio engine was down or behind");
+
+    private static boolean published;
+
+    private Metrics() {
+    }
+
+    /** A count that only goes up. */
+    static final class Counter {
+        private final String description;
+        private final LongAdder value = new LongAdder();
+
+        private Counter(String description) {
+            this.description = description;
+        }
+
+        void increment() {
+            value.increment();
+        }
+
+        void add(long n) {
+            value.add(n);
+        }
+
+        long get() {
+            return value.sum();
+        }
+    }
+
+    /**
+     * Durations in power-of-two buckets of nanoseconds, so percentiles are
+     * upper bounds within a factor of two; the mean and the max are exact.
+     */
+    static final class Histogram {
+        private static final int BUCKETS = 64;
+
+        private final String description;
+        private final LongAdder[] buckets = new LongAdder[BUCKETS];
+        private final LongAdder total = new LongAdder();
+        private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+        Histogram(String description) {
+            this.description = description;
+            for (int b = 0; b < BUCKETS; b++)
+                buckets[b] = new LongAdder();
+        }
+
+        /** Records the time since {@code startNanos}, a {@link System#nanoTime()} reading. */
+        void since(long startNanos) {
+            record(System.nanoTime() - startNanos);
+        }
+
+        void record(long nanos) {
+            nanos = Math.max(0, nanos);
+            // bucket b holds [2^(b-1), 2^b), so 0 and 1 land in 0 and 1
+            buckets[Math.min(BUCKETS - 1, 64 - Long.numberOfLeadingZeros(nanos))].increment();
+            total.add(nanos);
+            max.accumulate(nanos);
+        }
+
+        long count() {
+            long n = 0;
+            for (LongAdder b : buckets)
+                n += b.sum();
+            return n;
+        }
+
+        double meanNanos() {
+            long n = count();
+            return n == 0 ? 0 : (double) total.sum() / n;
+        }
+
+        long maxNanos() {
+            return max.get();
+        }
+
+        /** Upper bound of the bucket holding quantile {@code q}, e.g. 0.99; 0 if empty. */
+        long percentileNanos(double q) {
+            long[] counts = new long[BUCKETS];
+            long n = 0;
+            for (int b = 0; b < BUCKETS; b++)
+                n += counts[b] = buckets[b].sum();
+            long rank = (long) Math.ceil(q * n);
+            long seen = 0;
+            for (int b = 0; b < BUCKETS; b++) {
+                seen += counts[b];
+                if (seen >= rank && counts[b] > 0)
+                    return Math.min(b == 0 ? 0 : 1L << b, maxNanos());
+            }
+            return 0;
+        }
+    }
+
+    private static Counter counter(String name, String description) {
+        Counter c = new Counter(description);
+        COUNTERS.put(name, c);
+        return c;
+    }
+
+    private static Histogram histogram(String name, String description) {
+        Histogram h = new Histogram(description);
+        HISTOGRAMS.put(name, h);
+        return h;
+    }
+
+    /**
+     * Every value by attribute name: counters as they are, and for each
+     * histogram {@code name.count}, {@code .meanMicros}, {@code .p50Micros},
+     * {@code .p99Micros} and {@code .maxMicros}.
+     */
+    static Map<String, Number> snapshot() {
+        Map<String, Number> out = new LinkedHashMap<>();
+        COUNTERS.forEach((name, c) -> out.put(name, c.get()));
+        HISTOGRAMS.forEach((name, h) -> {
+            out.put(name + ".count", h.count());
+            out.put(name + ".meanMicros", h.meanNanos() / 1e3);
+            out.put(name + ".p50Micros", h.percentileNanos(0.50) / 1e3);
+            out.put(name + ".p99Micros", h.percentileNanos(0.99) / 1e3);
+            out.put(name + ".maxMicros", h.maxNanos() / 1e3);
+        });
+        return out;
+    }
+
+    /** Registers the MBean with the platform MBean server; later calls do nothing. */
+    static synchronized void publish() {
+        if (published)
+            return;
+        try {
+            ManagementFactory.getPlatformMBeanServer().registerMBean(new Bean(), new ObjectName(OBJECT_NAME));
+        } catch (InstanceAlreadyExistsException e) {
+            // registered by another class loader's copy; keep that one
+        } catch (JMException e) {
+            throw new IllegalStateException("could not register " + OBJECT_NAME, e);
+        }
+        published = true;
+    }
+
+    /** Read-only view of {@link #snapshot()}; attributes are read live. */
+    private static final class Bean implements DynamicMBean {
+        private final MBeanInfo info;
+
+        Bean() {
+            Map<String, Number> now = snapshot();
+            MBeanAttributeInfo[] attrs = new MBeanAttributeInfo[now.size()];
+            int i = 0;
+            for (Map.Entry<String, Number> e : now.entrySet()) {
+                String name = e.getKey();
+                attrs[i++] = new MBeanAttributeInfo(name, e.getValue().getClass().getName(), describe(name),
+                        true, false, false);
+            }
+            info = new MBeanInfo(Metrics.class.getName(), "Waffle engine counters and latencies", attrs,
+                    null, null, null);
+        }
+
+        private static String describe(String attribute) {
+            Counter c = COUNTERS.get(attribute);
+            if (c != null)
+                return c.description;
+            String name = attribute.substring(0, attribute.lastIndexOf('.'));
+            return HISTOGRAMS.get(name).description + " (" + attribute.substring(name.length() + 1) + ")";
+        }
+
+        @Override
+        public Object getAttribute(String attribute) throws AttributeNotFoundException {
+            Number n = snapshot().get(attribute);
+            if (n == null)
+                throw new AttributeNotFoundException(attribute);
+            return n;
+        }
+
+        @Override
+        public AttributeList getAttributes(String[] attributes) {
+            Map<String, Number> now = snapshot();
+            AttributeList out = new AttributeList();
+            for (String a : attributes) {
+                if (now.containsKey(a))
+                    out.add(new Attribute(a, now.get(a)));
+            }
+            return out;
+        }
+
+        @Override
+        public void setAttribute(Attribute attribute) throws AttributeNotFoundException {
+            throw new AttributeNotFoundException(attribute.getName() + " is read-only");
+        }
+
+        @Override
+        public AttributeList setAttributes(AttributeList attributes) {
+            return new AttributeList();
+        }
+
+        @Override
+        public Object invoke(String actionName, Object[] params, String[] signature) throws ReflectionException {
+            throw new ReflectionException(new NoSuchMethodException(actionName), "no operations on " + OBJECT_NAME);
+        }
+
+        @Override
+        public MBeanInfo getMBeanInfo() {
+            return info;
+        }
+    }
+}
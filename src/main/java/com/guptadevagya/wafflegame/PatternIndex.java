@@ -0,0 +1,171 @@
+package com.guptadevagya.wafflegame;
+
+import java.util.List;
+
+/**
+ * Per-position, per-letter bitsets over a word list.
+ *
+ * Bit {@code id} of {@code bits(pos, letter)} is set when word {@code id} has
+ * {@code letter} at {@code pos}. A positional query is answered one 64-word
+ * block at a time by ANDing, per constrained position, the OR of its allowed
+ * letters. Nothing is allocated per query.
+ */
+final class PatternIndex {
+    static final int LETTERS = 26;
+    /** Allowed-letter mask that lets every letter through. */
+    static final int ANY = (1 << LETTERS) - 1;
+
+    private final int size;
+    private final int length;
+    /** Letter codes (A = 0) of word {@code id} at {@code id * length}. */
+    private final byte[] letters;
+    private final int blocks;
+    private final long[][] bits;
+    private final long[] all;
+
+    /** @param words distinct uppercase A–Z words, all {@code length} letters long */
+    PatternIndex(List<String> words, int length) {
+        this.size = words.size();
+        this.length = length;
+        this.letters = new byte[size * length];
+        this.blocks = (size + 63) >>> 6;
+        this.bits = new long[length * LETTERS][blocks];
+        this.all = new long[blocks];
+        for (int id = 0; id < size; id++) {
+            String w = words.get(id);
+            for (int pos = 0; pos < length; pos++) {
+                int l = w.charAt(pos) - 'A';
+                letters[id * length + pos] = (byte) l;
+                bits[pos * LETTERS + l][id >>> 6] |= 1L << id;
+            }
+            all[id >>> 6] |= 1L << id;
+        }
+    }
+
+    /** The words {@code ids[0..n)} of {@code from}, renumbered 0..n-1 in that order. */
+    PatternIndex(PatternIndex from, int[] ids, int n) {
+        this.size = n;
+        this.length = from.length;
+        this.letters = new byte[size * length];
+        this.blocks = (size + 63) >>> 6;
+        this.bits = new long[length * LETTERS][blocks];
+        this.all = new long[blocks];
+        for (int id = 0; id < size; id++) {
+            for (int pos = 0; pos < length; pos++) {
+                int l = from.letter(ids[id], pos);
+                letters[id * length + pos] = (byte) l;
+                bits[pos * LETTERS + l][id >>> 6] |= 1L << id;
+            }
+            all[id >>> 6] |= 1L << id;
+        }
+    }
+
+    int size() {
+        return size;
+    }
+
+    int length() {
+        return length;
+    }
+
+    int blocks() {
+        return blocks;
+    }
+
+    String word(int id) {
+        char[] out = new char[length];
+        for (int pos = 0; pos < length; pos++)
+            out[pos] = (char) ('A' + letters[id * length + pos]);
+        return new String(out);
+    }
+
+    /** Letter of word {@code id} at {@code pos}, 0 for 'A'. */
+    int letter(int id, int pos) {
+        return letters[id * length + pos];
+    }
+
+    /**
+     * Letters (bit 0 = 'A') found at {@code pos} among the words set in
+     * {@code mask}; stops looking once every letter of {@code wanted} is seen.
+     */
+    int lettersAt(long[] mask, int pos, int wanted) {
+        int set = 0;
+        for (int b = 0; b < blocks; b++) {
+            for (long m = mask[b]; m != 0; m &= m - 1) {
+                set |= 1 << letters[((b << 6) | Long.numberOfTrailingZeros(m)) * length + pos];
+                if ((set & wanted) == wanted)
+                    return set;
+            }
+        }
+        return set;
+    }
+
+    /**
+     * Matches within block {@code b} for the given per-position allowed-letter
+     * masks (bit 0 = 'A'); {@link #ANY} leaves a position unconstrained.
+     */
+    long block(int[] allowed, int b) {
+        return block(allowed, b, all[b]);
+    }
+
+    private long block(int[] allowed, int b, long m) {
+        for (int pos = 0; pos < length && m != 0; pos++) {
+            int set = allowed[pos];
+            if (set == ANY)
+                continue;
+            // OR together whichever side of the mask is smaller
+            boolean invert = Integer.bitCount(set) > LETTERS / 2;
+            long acc = 0;
+            for (int letters = invert ? ~set & ANY : set; letters != 0; letters &= letters - 1)
+                acc |= bits[pos * LETTERS + Integer.numberOfTrailingZeros(letters)][b];
+            m &= invert ? ~acc : acc;
+        }
+        return m;
+    }
+
+    /** Writes all match blocks into {@code out} and returns the number of matches. */
+    int fill(int[] allowed, long[] out) {
+        int n = 0;
+        for (int b = 0; b < blocks; b++) {
+            out[b] = block(allowed, b);
+            n += Long.bitCount(out[b]);
+        }
+        return n;
+    }
+
+    /**
+     * Like {@link #fill} but only among the words set in {@code within},
+     * skipping its empty blocks; {@code out} may be {@code within} itself.
+     */
+    int refine(int[] allowed, long[] within, long[] out) {
+        int n = 0;
+        for (int b = 0; b < blocks; b++) {
+            long m = within[b];
+            out[b] = m == 0 ? 0 : block(allowed, b, m);
+            n += Long.bitCount(out[b]);
+        }
+        return n;
+    }
+
+    int count(int[] allowed) {
+        int n = 0;
+        for (int b = 0; b < blocks; b++)
+            n += Long.bitCount(block(allowed, b));
+        return n;
+    }
+
+    /** Id of the {@code k}-th match (0-based) in id order, or -1 if there are not that many. */
+    int select(int[] allowed, int k) {
+        for (int b = 0; b < blocks; b++) {
+            long m = block(allowed, b);
+            int n = Long.bitCount(m);
+            if (k < n) {
+                for (; k > 0; k--)
+                    m &= m - 1;
+                return (b << 6) | Long.numberOfTrailingZeros(m);
+            }
+            k -= n;
+        }
+        return -1;
+    }
+}
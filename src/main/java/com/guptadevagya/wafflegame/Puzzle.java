@@ -0,0 +1,11 @@
+package com.guptadevagya.wafflegame;
+
+/**
+ * A scrambled starting board together with its solution, and the
+ * {@link PuzzleCode} it was generated from, or null if it has none.
+ */
+record Puzzle(Board start, Board solution, String code) {
+    Puzzle(Board start, Board solution) {
+        this(start, solution, null);
+    }
+}
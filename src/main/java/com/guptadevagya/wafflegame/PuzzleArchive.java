@@ -0,0 +1,247 @@
+package com.guptadevagya.wafflegame;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.IntStream;
+
+/**
+ * Read-only, memory-mapped puzzle archive (.wafl) with O(1) lookup by number.
+ *
+ * <pre>
+ * header   32 bytes  magic "WAFL", version, count, first number, last number, index offset (long), pad
+ * records  count * 42 bytes, each 21 start letters then 21 solution letters (ASCII, cell order)
+ * index    (last - first + 1) ints: record slot of puzzle first + i, or -1
+ * </pre>
+ *
+ * All values are big-endian. Fetching a puzzle reads one index entry and the
+ * 42 letters of its record straight from the mapping.
+ */
+final class PuzzleArchive implements AutoCloseable {
+    static final String EXTENSION = ".wafl";
+
+    private static final int MAGIC = 0x5741464C; // "WAFL"
+    private static final int VERSION = 1;
+    private static final int HEADER = 32;
+    private static final int RECORD = 2 * Board.CELLS;
+
+    private static final Map<Path, PuzzleArchive> OPEN = new ConcurrentHashMap<>();
+
+    private final FileChannel channel;
+    // what the file looked like when mapped, so cached() can tell it was rewritten
+    private final FileTime modified;
+    private final MappedByteBuffer map;
+    private final int count;
+    private final int first;
+    private final int last;
+    private final long indexOffset;
+
+    private PuzzleArchive(FileChannel channel, FileTime modified) throws IOException {
+        this.channel = channel;
+        this.modified = modified;
+        long size = channel.size();
+        if (size < HEADER || size > Integer.MAX_VALUE)
+            throw new IOException("not a puzzle archive (size " + size + ")");
+        this.map = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+        if (map.getInt(0) != MAGIC || map.getInt(4) != VERSION)
+            throw new IOException("not a version " + VERSION + " puzzle archive");
+        this.count = map.getInt(8);
+        this.first = map.getInt(12);
+        this.last = map.getInt(16);
+        this.indexOffset = map.getLong(20);
+        long expected = indexOffset + 4L * Math.max(0, last - first + 1);
+        if (indexOffset != HEADER + (long) count * RECORD || expected != size)
+            throw new IOException("corrupt puzzle archive");
+    }
+
+    static PuzzleArchive open(Path file) throws IOException {
+        FileTime modified = Files.getLastModifiedTime(file);
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+        try {
+            return new PuzzleArchive(channel, modified);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Shared, lazily opened archive for {@code file}. The mapping is reused
+     * until the file's size or modification time changes, then reopened.
+     */
+    static PuzzleArchive cached(Path file) throws IOException {
+        Path key = file.toAbsolutePath().normalize();
+        PuzzleArchive a = OPEN.get(key);
+        if (a != null) {
+            if (a.isCurrent(key))
+                return a;
+            // callers still holding the old archive keep its mapping
+            if (OPEN.remove(key, a))
+                a.close();
+        }
+        PuzzleArchive opened = open(key);
+        a = OPEN.putIfAbsent(key, opened);
+        if (a == null)
+            return opened;
+        opened.close();
+        return a;
+    }
+
+    /** Drops the cached archive for {@code file}, if any, e.g. before the file is rewritten. */
+    private static void forget(Path file) throws IOException {
+        PuzzleArchive a = OPEN.remove(file.toAbsolutePath().normalize());
+        if (a != null)
+            a.close();
+    }
+
+    private boolean isCurrent(Path file) {
+        try {
+            return Files.size(file) == map.capacity() && Files.getLastModifiedTime(file).equals(modified);
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    static boolean isArchive(String filename) {
+        return filename.endsWith(EXTENSION);
+    }
+
+    int count() {
+        return count;
+    }
+
+    /** Lowest and highest puzzle numbers; {@code first() > last()} when empty. */
+    int first() {
+        return first;
+    }
+
+    int last() {
+        return last;
+    }
+
+    boolean contains(int number) {
+        return slot(number) >= 0;
+    }
+
+    /** Puzzle {@code number}; throws IllegalStateException if the archive has no such puzzle. */
+    Puzzle get(int number) {
+        int slot = slot(number);
+        if (slot < 0)
+            throw new IllegalStateException("puzzle number " + number + " not found in archive.");
+        int base = HEADER + slot * RECORD;
+        Board start = new Board();
+        Board solution = new Board();
+        for (int i = 0; i < Board.CELLS; i++) {
+            start.setLetter(i, (char) map.get(base + i));
+            solution.setLetter(i, (char) map.get(base + Board.CELLS + i));
+        }
+        return new Puzzle(start, solution);
+    }
+
+    private int slot(int number) {
+        if (count == 0 || number < first || number > last)
+            return -1;
+        return map.getInt((int) indexOffset + 4 * (number - first));
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    /**
+     * Converts a waffles.txt style file into an archive; returns the number
+     * of puzzles skipped as malformed or not 5x5.
+     */
+    static int convert(Path text, Path archive) throws IOException {
+        // build beside the archive and swap it in whole: truncating in place
+        // would pull the file out from under anyone still mapping it
+        Path dir = archive.toAbsolutePath().getParent();
+        Path tmp = Files.createTempFile(dir, archive.getFileName().toString(), ".tmp");
+        try {
+            int skipped = write(text, tmp);
+            Files.move(tmp, archive, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            forget(archive);
+            return skipped;
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+    }
+
+    private static int write(Path text, Path archive) throws IOException {
+        IntStream.Builder seen = IntStream.builder();
+        try (FileChannel out = FileChannel.open(archive, StandardOpenOption.WRITE)) {
+            ByteBuffer record = ByteBuffer.allocate(RECORD);
+            out.position(HEADER);
+            // records are fixed-size, so only 5x5 puzzles fit
+            int skipped = PuzzleFile.read(text, Layout.STANDARD, (number, p) -> {
+                seen.add(number);
+                record.clear();
+                for (int i = 0; i < Board.CELLS; i++)
+                    record.put((byte) p.start().letter(i));
+                for (int i = 0; i < Board.CELLS; i++)
+                    record.put((byte) p.solution().letter(i));
+                record.flip();
+                while (record.hasRemaining())
+                    out.write(record);
+            });
+
+            int[] numbers = seen.build().toArray();
+            int count = numbers.length;
+            int first = 0;
+            int last = -1;
+            if (count > 0) {
+                first = Arrays.stream(numbers).min().getAsInt();
+                last = Arrays.stream(numbers).max().getAsInt();
+            }
+            long span = (long) last - first + 1;
+            if (span > Integer.MAX_VALUE / 4)
+                throw new IOException("puzzle numbers " + first + ".." + last + " are too sparse for an archive");
+
+            ByteBuffer index = ByteBuffer.allocate(4 * (int) span);
+            for (int i = 0; i < span; i++)
+                index.putInt(-1);
+            for (int slot = 0; slot < count; slot++) {
+                int at = 4 * (numbers[slot] - first);
+                if (index.getInt(at) != -1)
+                    throw new IOException("puzzle number " + numbers[slot] + " appears twice in " + text);
+                index.putInt(at, slot);
+            }
+            long indexOffset = HEADER + (long) count * RECORD;
+            index.flip();
+            while (index.hasRemaining())
+                out.write(index, indexOffset + index.position());
+
+            ByteBuffer header = ByteBuffer.allocate(HEADER);
+            header.putInt(MAGIC).putInt(VERSION).putInt(count).putInt(first).putInt(last).putLong(indexOffset);
+            header.clear();
+            while (header.hasRemaining())
+                out.write(header, header.position());
+            return skipped;
+        }
+    }
+
+    /** {@code PuzzleArchive <waffles.txt> <out.wafl>} */
+    public static void main(String[] args) throws IOException {
+        if (args.length != 2) {
+            System.err.println("usage: PuzzleArchive <puzzles.txt> <out" + EXTENSION + ">");
+            System.exit(2);
+        }
+        Path out = Path.of(args[1]);
+        int skipped = convert(Path.of(args[0]), out);
+        try (PuzzleArchive a = open(out)) {
+            System.out.println("wrote " + a.count() + " puzzles to " + out + " (" + Files.size(out) + " bytes)");
+        }
+        if (skipped > 0)
+            System.out.println("skipped " + skipped + " malformed or non-5x5 puzzle(s)");
+    }
+}
@@ -0,0 +1,181 @@
+package com.guptadevagya.wafflegame;
+
+import java.lang.System.Logger.Level;
+import java.util.SplittableRandom;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.random.RandomGenerator;
+
+/**
+ * A bounded queue of ready-to-play puzzles kept topped up by background
+ * producers, so starting a new game on the event thread is a queue poll.
+ *
+ * Producers block once the bank is full (back-pressure). When the bank is
+ * empty, {@link #take()} falls back to generating on the caller's thread.
+ * Puzzles come from {@link WaffleGame#fromSeed(long)}, so each carries the
+ * code that shares it.
+ */
+final class PuzzleBank implements AutoCloseable {
+    private static final System.Logger LOG = System.getLogger(PuzzleBank.class.getName());
+    // pause after a failed attempt, so a persistent bug doesn't spin a core
+    private static final long RETRY_MILLIS = 100;
+
+    private final BlockingQueue<Puzzle> queue;
+    private final ExecutorService producers;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+    private final Function<RandomGenerator, Puzzle> source;
+    private volatile long lastNanos;
+    private volatile boolean closed;
+
+    /** Shared bank for the UI; depth and producer count come from system properties. */
+    static final class Holder {
+        private Holder() {
+        }
+
+        static final PuzzleBank SHARED = new PuzzleBank(
+                Integer.getInteger("waffle.bank.depth", 16),
+                Integer.getInteger("waffle.bank.producers", 1));
+
+        static {
+            Runtime.getRuntime().addShutdownHook(new Thread(SHARED::close, "puzzle-bank-shutdown"));
+        }
+    }
+
+    static PuzzleBank shared() {
+        return Holder.SHARED;
+    }
+
+    PuzzleBank(int depth, int producerCount) {
+        this(depth, producerCount, rng -> WaffleGame.fromSeed(rng.nextLong()));
+    }
+
+    /** A bank filled from {@code source} instead of the dictionary generator. */
+    PuzzleBank(int depth, int producerCount, Function<RandomGenerator, Puzzle> source) {
+        if (depth < 1 || producerCount < 1)
+            throw new IllegalArgumentException("depth and producer count must be positive");
+        this.source = source;
+        this.queue = new ArrayBlockingQueue<>(depth);
+        this.producers = Executors.newThreadPerTaskExecutor(
+                Thread.ofVirtual().name("puzzle-bank-", 0).factory());
+        for (int i = 0; i < producerCount; i++)
+            producers.execute(this::produce);
+    }
+
+    /** A puzzle from the bank, or a freshly generated one if the bank is empty or closed. */
+    Puzzle take() {
+        Puzzle p = queue.poll();
+        if (p != null) {
+            hits.increment();
+            return p;
+        }
+        misses.increment();
+        return generate(ThreadLocalRandom.current());
+    }
+
+    /**
+     * How long the most recently generated puzzle took, whether on a
+     * producer or in a {@link #take()} that missed; 0 before the first.
+     */
+    long lastGenerationNanos() {
+        return lastNanos;
+    }
+
+    int size() {
+        return queue.size();
+    }
+
+    long hits() {
+        return hits.sum();
+    }
+
+    long misses() {
+        return misses.sum();
+    }
+
+    /** Generation attempts in the producers that threw. */
+    long failures() {
+        return failures.sum();
+    }
+
+    /** Fraction of takes served from the bank, 0 before the first take. */
+    double hitRate() {
+        long h = hits.sum();
+        long total = h + misses.sum();
+        return total == 0 ? 0 : (double) h / total;
+    }
+
+    /** Stops the producers and waits briefly for them; queued puzzles stay available. */
+    @Override
+    public void close() {
+        if (closed)
+            return;
+        closed = true;
+        producers.shutdownNow();
+        try {
+            producers.awaitTermination(1, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public String toString() {
+        return String.format("PuzzleBank[size=%d, hits=%d, misses=%d, hitRate=%.1f%%, failures=%d]",
+                size(), hits(), misses(), 100 * hitRate(), failures());
+    }
+
+    private void produce() {
+        SplittableRandom rng = new SplittableRandom();
+        while (!closed) {
+            try {
+                queue.put(generate(rng));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (BoardGenerator.NoBoardException e) {
+                // the word list admits no board, so retrying can't help; take() reports it synchronously
+                fail();
+                LOG.log(Level.ERROR, "puzzle bank stopped: {0}", e.getMessage());
+                return;
+            } catch (RuntimeException e) {
+                // anything else is a bug in one attempt: report it and keep filling, after a pause;
+                // the trace goes to DEBUG so a failing source doesn't flood the log
+                fail();
+                LOG.log(Level.WARNING, "puzzle bank: generation failed, retrying: {0}", e.toString());
+                LOG.log(Level.DEBUG, "puzzle bank generation failure", e);
+                if (!pause())
+                    return;
+            }
+        }
+    }
+
+    private void fail() {
+        failures.increment();
+        Metrics.BANK_FAILURES.increment();
+    }
+
+    private Puzzle generate(RandomGenerator rng) {
+        long start = System.nanoTime();
+        Puzzle p = source.apply(rng);
+        lastNanos = System.nanoTime() - start;
+        return p;
+    }
+
+    private static boolean pause() {
+        try {
+            Thread.sleep(RETRY_MILLIS);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+}
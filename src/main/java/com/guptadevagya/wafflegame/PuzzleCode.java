@@ -0,0 +1,47 @@
+package com.guptadevagya.wafflegame;
+
+/**
+ * Shareable codes for generated puzzles: the 64-bit generation seed in
+ * Crockford base32, 13 characters such as {@code 0ZK4C9T3MX1QE}. Since
+ * {@link WaffleGame#fromSeed(long)} is deterministic, a code names the same
+ * puzzle for anyone with the same dictionary.
+ *
+ * Parsing ignores case, spaces and dashes, and reads I and L as 1 and O as 0.
+ */
+final class PuzzleCode {
+    static final int LENGTH = 13;
+    private static final String DIGITS = "0123456789ABCDEFGHJKMNPQRSTVWXYZ";
+
+    private PuzzleCode() {
+    }
+
+    static String of(long seed) {
+        // 64 bits = 4 in the first digit, then 12 of 5
+        char[] out = new char[LENGTH];
+        for (int i = LENGTH - 1; i >= 0; i--, seed >>>= 5)
+            out[i] = DIGITS.charAt((int) (seed & 31));
+        return new String(out);
+    }
+
+    /** The seed behind {@code code}; throws IllegalArgumentException if it isn't one. */
+    static long parse(String code) {
+        long seed = 0;
+        int n = 0;
+        for (int i = 0; i < code.length(); i++) {
+            char ch = Character.toUpperCase(code.charAt(i));
+            if (ch == '-' || ch == ' ')
+                continue;
+            int d = switch (ch) {
+                case 'O' -> 0;
+                case 'I', 'L' -> 1;
+                default -> DIGITS.indexOf(ch);
+            };
+            if (d < 0 || ++n > LENGTH || (n == 1 && d > 15))
+                throw new IllegalArgumentException("not a puzzle code: " + code);
+            seed = seed << 5 | d;
+        }
+        if (n != LENGTH)
+            throw new IllegalArgumentException("not a puzzle code: " + code);
+        return seed;
+    }
+}
@@ -0,0 +1,133 @@
+package com.guptadevagya.wafflegame;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Streaming reader and writer for the waffles.txt text format: a puzzle
+ * number on its own line, five lines of the starting grid, then five lines
+ * of the solution. Blank lines and lines starting with '#' are ignored.
+ * Larger waffles work the same way; the size of each puzzle is the length
+ * of its first grid line, which has no holes.
+ */
+final class PuzzleFile {
+    private PuzzleFile() {
+    }
+
+    @FunctionalInterface
+    interface Visitor {
+        void accept(int number, Puzzle puzzle) throws IOException;
+    }
+
+    /**
+     * Calls {@code visitor} for every well-formed puzzle in file order and
+     * returns how many malformed ones (short or missing grid lines) were skipped.
+     */
+    static int read(Path file, Visitor visitor) throws IOException {
+        return scan(file, null, -1, visitor);
+    }
+
+    /**
+     * Like {@link #read(Path, Visitor)}, but only for puzzles of {@code layout};
+     * those of any other size are skipped and counted with the malformed ones.
+     */
+    static int read(Path file, Layout layout, Visitor visitor) throws IOException {
+        return scan(file, layout, -1, visitor);
+    }
+
+    /**
+     * Puzzle {@code number}, of any size, reading no further than it. Throws
+     * IllegalStateException if the file has no such puzzle or it is malformed.
+     */
+    static Puzzle find(Path file, int number) throws IOException {
+        Puzzle[] found = new Puzzle[1];
+        int malformed = scan(file, null, number, (n, p) -> found[0] = p);
+        if (found[0] == null) {
+            throw new IllegalStateException(malformed > 0
+                    ? "puzzle number " + number + " is malformed in file."
+                    : "puzzle number " + number + " not found in file.");
+        }
+        return found[0];
+    }
+
+    // layout null takes every size; only >= 0 reads just that puzzle and stops there
+    private static int scan(Path file, Layout layout, int only, Visitor visitor) throws IOException {
+        int skipped = 0;
+        try (BufferedReader in = Files.newBufferedReader(file, StandardCharsets.ISO_8859_1)) {
+            String[] lines = new String[2 * Layout.MAX_SIZE];
+            String line = in.readLine();
+            while (line != null) {
+                int number = parseNumber(line);
+                if (number < 0 || (only >= 0 && number != only)) {
+                    line = in.readLine();
+                    continue;
+                }
+                // a puzzle runs until the next number line
+                int n = 0;
+                int size = 0;
+                boolean ok = true;
+                for (line = in.readLine(); line != null && parseNumber(line) < 0; line = in.readLine()) {
+                    if (line.isBlank() || line.startsWith("#"))
+                        continue;
+                    if (n == 0)
+                        size = line.stripTrailing().length();
+                    if (n == lines.length || line.length() < size)
+                        ok = false;
+                    else
+                        lines[n++] = line;
+                }
+                if (ok && n == 2 * size && Layout.isSupported(size) && (layout == null || size == layout.size()))
+                    visitor.accept(number, new Puzzle(grid(lines, 0, size), grid(lines, size, size)));
+                else
+                    skipped++;
+                if (only >= 0)
+                    break;
+            }
+        }
+        return skipped;
+    }
+
+    /** Writes one puzzle; {@code grid} is a scratch buffer of the puzzle's size. */
+    static void write(Writer w, long number, Puzzle p, char[][] grid) throws IOException {
+        w.write(Long.toString(number));
+        w.write('\n');
+        writeGrid(w, p.start(), grid);
+        writeGrid(w, p.solution(), grid);
+    }
+
+    private static int parseNumber(String line) {
+        String t = line.trim();
+        if (t.isEmpty() || t.length() > 9)
+            return -1;
+        for (int i = 0; i < t.length(); i++) {
+            if (t.charAt(i) < '0' || t.charAt(i) > '9')
+                return -1;
+        }
+        return Integer.parseInt(t);
+    }
+
+    private static Board grid(String[] lines, int from, int size) {
+        Layout layout = Layout.of(size);
+        Board b = new Board(layout);
+        for (int r = 0; r < size; r++) {
+            for (int c = 0; c < size; c++) {
+                int cell = layout.cell(r, c);
+                if (cell >= 0)
+                    b.setLetter(cell, lines[from + r].charAt(c));
+            }
+        }
+        return b;
+    }
+
+    private static void writeGrid(Writer w, Board b, char[][] grid) throws IOException {
+        b.toGrid(grid);
+        for (char[] row : grid) {
+            w.write(row);
+            w.write('\n');
+        }
+    }
+}
@@ -0,0 +1,529 @@
+package com.guptadevagya.wafflegame;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.SecureRandom;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+import java.util.function.LongConsumer;
+import java.util.function.LongPredicate;
+import java.util.function.LongSupplier;
+
+/**
+ * Games in progress, kept packed rather than as live {@link WaffleGame}s: a
+ * resident session is the current and solution boards as four longs, the
+ * puzzle's seed, the swaps left, the give-up flag and the undo log at one
+ * byte per swap, about 145 bytes with its map entry, so a million idle
+ * sessions fit in 160 MB.
+ * A spilled session costs about 30 bytes of memory for its index entry.
+ *
+ * Sessions hash to one of {@link #STRIPES} stripes, each an access-ordered
+ * map behind its own lock. When a stripe is full its least recently used
+ * session is evicted; sessions idle past the TTL are dropped by
+ * {@link #expire()}. With a spill file, evicted sessions are written there
+ * as fixed 80-byte records and read back on their next request, and
+ * {@link #close()} spills everything still resident, so reopening the file
+ * restores all live sessions.
+ *
+ * Standard 5x5 games only: boards are stored as {@link Board#lo()} and
+ * {@link Board#hi()}, and a swap as the index of its cell pair.
+ */
+final class SessionStore implements AutoCloseable {
+    static final int STRIPES = 64;
+
+    // 2020-01-01, so idle times fit in an int of seconds until 2088
+    private static final long EPOCH_SECONDS = 1_577_836_800L;
+    private static final byte[] NO_MOVES = {};
+
+    // spill record: id, solution lo/hi, current lo/hi, last used, swaps left,
+    // flags (gave up, seeded), seed, move count, then the move log
+    private static final int RECORD = 80;
+    private static final int LOG_OFFSET = 55;
+    private static final int GAVE_UP = 1;
+    private static final int SEEDED = 2;
+    private static final int LOG_CAPACITY = RECORD - LOG_OFFSET;
+
+    private final Stripe[] stripes = new Stripe[STRIPES];
+    private final int perStripe;
+    private final long ttlSeconds;
+    private final LongSupplier clock;
+    private final SecureRandom ids = new SecureRandom();
+
+    private final FileChannel spill;
+    private final ReentrantLock slotLock = new ReentrantLock();
+    private int[] freeSlots = new int[16];
+    private int freeCount;
+    private int nextSlot;
+
+    /** One lock's share of the sessions. */
+    private static final class Stripe {
+        final ReentrantLock lock = new ReentrantLock();
+        final LinkedHashMap<Long, Entry> resident = new LinkedHashMap<>(16, 0.75f, true);
+        // id -> spill slot << 32 | last used
+        final LongMap spilled = new LongMap();
+    }
+
+    /**
+     * Open-addressing long to long map with linear probing, for the spill
+     * index; boxed HashMap entries would cost three times as much. Key 0
+     * marks an empty slot, and values must not be negative.
+     */
+    private static final class LongMap {
+        private long[] keys = new long[16];
+        private long[] values = new long[16];
+        private int size;
+
+        int size() {
+            return size;
+        }
+
+        boolean containsKey(long key) {
+            return get(key) >= 0;
+        }
+
+        /** The value for {@code key}, or -1. */
+        long get(long key) {
+            if (key == 0)
+                return -1;
+            int mask = keys.length - 1;
+            for (int i = slot(key, mask); keys[i] != 0; i = (i + 1) & mask) {
+                if (keys[i] == key)
+                    return values[i];
+            }
+            return -1;
+        }
+
+        void put(long key, long value) {
+            if (4 * (size + 1) > 3 * keys.length)
+                rehash(keys.length * 2, null);
+            int mask = keys.length - 1;
+            int i = slot(key, mask);
+            while (keys[i] != 0 && keys[i] != key)
+                i = (i + 1) & mask;
+            if (keys[i] == 0)
+                size++;
+            keys[i] = key;
+            values[i] = value;
+        }
+
+        /** Removes {@code key} and returns its value, or -1 if absent. */
+        long remove(long key) {
+            if (key == 0)
+                return -1;
+            int mask = keys.length - 1;
+            int i = slot(key, mask);
+            while (keys[i] != key) {
+                if (keys[i] == 0)
+                    return -1;
+                i = (i + 1) & mask;
+            }
+            long value = values[i];
+            // shift later entries of the probe run back over the gap
+            for (int j = (i + 1) & mask; keys[j] != 0; j = (j + 1) & mask) {
+                int home = slot(keys[j], mask);
+                if (((j - home) & mask) >= ((j - i) & mask)) {
+                    keys[i] = keys[j];
+                    values[i] = values[j];
+                    i = j;
+                }
+            }
+            keys[i] = 0;
+            size--;
+            return value;
+        }
+
+        /** Removes the entries whose value matches, passing each value to {@code removed}. */
+        void removeIf(LongPredicate matches, LongConsumer removed) {
+            rehash(keys.length, v -> {
+                if (!matches.test(v))
+                    return false;
+                removed.accept(v);
+                return true;
+            });
+        }
+
+        private void rehash(int capacity, LongPredicate drop) {
+            long[] oldKeys = keys;
+            long[] oldValues = values;
+            keys = new long[capacity];
+            values = new long[capacity];
+            size = 0;
+            for (int i = 0; i < oldKeys.length; i++) {
+                if (oldKeys[i] != 0 && (drop == null || !drop.test(oldValues[i])))
+                    put(oldKeys[i], oldValues[i]);
+            }
+        }
+
+        private static int slot(long key, int mask) {
+            return (int) ((key * 0xC2B2AE3D27D4EB4FL) >>> 32) & mask;
+        }
+    }
+
+    /** A packed session. */
+    private static final class Entry {
+        long solutionLo;
+        long solutionHi;
+        long currentLo;
+        long currentHi;
+        int lastUsed;
+        long seed;
+        byte swaps;
+        boolean gaveUp;
+        boolean seeded;
+        byte[] log = NO_MOVES;
+    }
+
+    /**
+     * A session unpacked for one call to {@link #update}: the live game and
+     * its undo log. Changes are packed back when the call returns normally.
+     */
+    static final class Session {
+        private final long id;
+        private final WaffleGame game;
+        private byte[] log;
+        private int moves;
+
+        private Session(long id, Entry e) {
+            this.id = id;
+            this.game = new WaffleGame(new Puzzle(Board.of(e.currentLo, e.currentHi),
+                    Board.of(e.solutionLo, e.solutionHi), e.seeded ? PuzzleCode.of(e.seed) : null));
+            game.restore(e.swaps, e.gaveUp);
+            this.log = e.log.length == 0 ? new byte[8] : e.log.clone();
+            this.moves = e.log.length;
+        }
+
+        long id() {
+            return id;
+        }
+
+        WaffleGame game() {
+            return game;
+        }
+
+        int moves() {
+            return moves;
+        }
+
+        /** Records a swap of cells {@code a} and {@code b} for undo. */
+        void pushMove(int a, int b) {
+            if (moves == log.length)
+                log = Arrays.copyOf(log, moves * 2);
+            log[moves++] = (byte) pair(a, b);
+        }
+
+        /** Removes the last swap and stores its two cells in {@code cells}; false if there is none. */
+        boolean popMove(int[] cells) {
+            if (moves == 0)
+                return false;
+            int p = log[--moves] & 0xFF;
+            int b = 1;
+            while (b * (b + 1) / 2 <= p)
+                b++;
+            cells[0] = p - b * (b - 1) / 2;
+            cells[1] = b;
+            return true;
+        }
+
+        void clearMoves() {
+            moves = 0;
+        }
+    }
+
+    /**
+     * @param maxResident sessions kept unpacked in memory before the least
+     *                    recently used are evicted
+     * @param ttlMillis   idle time after which a session is dropped
+     * @param spillFile   where evicted sessions go, or null to drop them;
+     *                    sessions already in it are restored on demand
+     */
+    SessionStore(int maxResident, long ttlMillis, Path spillFile) throws IOException {
+        this(maxResident, ttlMillis, spillFile, System::currentTimeMillis);
+    }
+
+    SessionStore(int maxResident, long ttlMillis, Path spillFile, LongSupplier clock) throws IOException {
+        if (maxResident < 1 || ttlMillis < 1000)
+            throw new IllegalArgumentException("need at least one resident session and a TTL of a second");
+        this.perStripe = Math.max(1, (maxResident + STRIPES - 1) / STRIPES);
+        this.ttlSeconds = ttlMillis / 1000;
+        this.clock = clock;
+        for (int i = 0; i < STRIPES; i++)
+            stripes[i] = new Stripe();
+        this.spill = spillFile == null ? null
+                : FileChannel.open(spillFile, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                        StandardOpenOption.WRITE);
+        if (spill != null)
+            scanSpill();
+    }
+
+    /** Starts a session on {@code p}, keeping its code if it has one, and returns its id. */
+    long create(Puzzle p) {
+        if (p.start().layout() != Layout.STANDARD)
+            throw new IllegalArgumentException("only " + Layout.STANDARD + " games can be stored");
+        Entry e = new Entry();
+        e.solutionLo = p.solution().lo();
+        e.solutionHi = p.solution().hi();
+        e.currentLo = p.start().lo();
+        e.currentHi = p.start().hi();
+        if (p.code() != null) {
+            e.seed = PuzzleCode.parse(p.code());
+            e.seeded = true;
+        }
+        e.swaps = (byte) WaffleGame.maxSwaps(Layout.STANDARD);
+        e.lastUsed = now();
+        while (true) {
+            long id = ids.nextLong();
+            Stripe s = stripe(id);
+            s.lock.lock();
+            try {
+                if (id == 0 || s.resident.containsKey(id) || s.spilled.containsKey(id))
+                    continue;
+                s.resident.put(id, e);
+                evict(s);
+                return id;
+            } finally {
+                s.lock.unlock();
+            }
+        }
+    }
+
+    /**
+     * Runs {@code action} on session {@code id} under its stripe's lock and
+     * packs the game back afterwards, unless the action throws. Returns null
+     * if there is no such session or it has expired.
+     */
+    <T> T update(long id, Function<Session, T> action) {
+        Stripe s = stripe(id);
+        s.lock.lock();
+        try {
+            Entry e = s.resident.get(id);
+            if (e == null && (e = unspill(s, id)) == null)
+                return null;
+            int now = now();
+            if (now - e.lastUsed > ttlSeconds) {
+                s.resident.remove(id);
+                return null;
+            }
+            Session session = new Session(id, e);
+            T result = action.apply(session);
+            pack(session, e);
+            e.lastUsed = now;
+            return result;
+        } finally {
+            s.lock.unlock();
+        }
+    }
+
+    /** Sessions held in memory. */
+    int size() {
+        int n = 0;
+        for (Stripe s : stripes) {
+            s.lock.lock();
+            try {
+                n += s.resident.size();
+            } finally {
+                s.lock.unlock();
+            }
+        }
+        return n;
+    }
+
+    /** Sessions waiting in the spill file. */
+    int spilled() {
+        int n = 0;
+        for (Stripe s : stripes) {
+            s.lock.lock();
+            try {
+                n += s.spilled.size();
+            } finally {
+                s.lock.unlock();
+            }
+        }
+        return n;
+    }
+
+    /** Drops sessions, resident or spilled, idle for longer than the TTL. */
+    void expire() {
+        int cutoff = now() - (int) Math.min(ttlSeconds, Integer.MAX_VALUE);
+        for (Stripe s : stripes) {
+            s.lock.lock();
+            try {
+                // access order: the eldest entries are the idlest
+                Iterator<Entry> it = s.resident.values().iterator();
+                while (it.hasNext() && it.next().lastUsed < cutoff)
+                    it.remove();
+                s.spilled.removeIf(v -> (int) v < cutoff, v -> freeSlot((int) (v >>> 32)));
+            } finally {
+                s.lock.unlock();
+            }
+        }
+    }
+
+    /** Spills every resident session, if there is a spill file, and closes it. */
+    @Override
+    public void close() throws IOException {
+        if (spill == null)
+            return;
+        for (Stripe s : stripes) {
+            s.lock.lock();
+            try {
+                for (Map.Entry<Long, Entry> e : s.resident.entrySet())
+                    spillEntry(s, e.getKey(), e.getValue());
+                s.resident.clear();
+            } finally {
+                s.lock.unlock();
+            }
+        }
+        spill.close();
+    }
+
+    private Stripe stripe(long id) {
+        long h = id * 0x9E3779B97F4A7C15L;
+        return stripes[(int) (h >>> 58)];
+    }
+
+    private int now() {
+        return (int) (clock.getAsLong() / 1000 - EPOCH_SECONDS);
+    }
+
+    /** Index of the unordered pair {a, b}; below 256 for up to 23 cells. */
+    private static int pair(int a, int b) {
+        int lo = Math.min(a, b);
+        int hi = Math.max(a, b);
+        return hi * (hi - 1) / 2 + lo;
+    }
+
+    private static void pack(Session session, Entry e) {
+        Board current = session.game.getPuzzleBoard();
+        e.currentLo = current.lo();
+        e.currentHi = current.hi();
+        e.swaps = (byte) session.game.getSwapsRemaining();
+        e.gaveUp = session.game.isGaveUp();
+        e.log = session.moves == 0 ? NO_MOVES : Arrays.copyOf(session.log, session.moves);
+    }
+
+    /** Evicts least recently used sessions until the stripe is within its share. */
+    private void evict(Stripe s) {
+        Iterator<Map.Entry<Long, Entry>> it = s.resident.entrySet().iterator();
+        while (s.resident.size() > perStripe) {
+            Map.Entry<Long, Entry> eldest = it.next();
+            it.remove();
+            if (spill != null && now() - eldest.getValue().lastUsed <= ttlSeconds)
+                spillEntry(s, eldest.getKey(), eldest.getValue());
+        }
+    }
+
+    private void spillEntry(Stripe s, long id, Entry e) {
+        int slot = allocateSlot();
+        ByteBuffer buf = ByteBuffer.allocate(RECORD);
+        buf.putLong(id).putLong(e.solutionLo).putLong(e.solutionHi).putLong(e.currentLo).putLong(e.currentHi)
+                .putInt(e.lastUsed).put(e.swaps).put((byte) ((e.gaveUp ? GAVE_UP : 0) | (e.seeded ? SEEDED : 0)))
+                .putLong(e.seed);
+        // only the newest moves fit; older ones can no longer be undone
+        int n = Math.min(e.log.length, LOG_CAPACITY);
+        buf.put((byte) n).put(e.log, e.log.length - n, n);
+        write(buf.clear(), slot);
+        s.spilled.put(id, (long) slot << 32 | (e.lastUsed & 0xFFFFFFFFL));
+    }
+
+    /** Moves session {@code id} back from the spill file, or returns null. */
+    private Entry unspill(Stripe s, long id) {
+        long v = s.spilled.remove(id);
+        if (v < 0)
+            return null;
+        int slot = (int) (v >>> 32);
+        ByteBuffer buf = read(slot);
+        Entry e = new Entry();
+        buf.getLong();
+        e.solutionLo = buf.getLong();
+        e.solutionHi = buf.getLong();
+        e.currentLo = buf.getLong();
+        e.currentHi = buf.getLong();
+        e.lastUsed = buf.getInt();
+        e.swaps = buf.get();
+        int flags = buf.get();
+        e.gaveUp = (flags & GAVE_UP) != 0;
+        e.seeded = (flags & SEEDED) != 0;
+        e.seed = buf.getLong();
+        int n = buf.get();
+        if (n > 0) {
+            e.log = new byte[n];
+            buf.get(e.log);
+        }
+        write(ByteBuffer.allocate(8), slot);
+        freeSlot(slot);
+        s.resident.put(id, e);
+        evict(s);
+        return e;
+    }
+
+    /** Indexes the sessions left in an existing spill file; zero ids mark free slots. */
+    private void scanSpill() throws IOException {
+        long records = spill.size() / RECORD;
+        ByteBuffer buf = ByteBuffer.allocate(RECORD);
+        for (int slot = 0; slot < records; slot++) {
+            buf.clear();
+            spill.read(buf, (long) slot * RECORD);
+            long id = buf.getLong(0);
+            if (id == 0) {
+                freeSlot(slot);
+                continue;
+            }
+            int lastUsed = buf.getInt(40);
+            stripe(id).spilled.put(id, (long) slot << 32 | (lastUsed & 0xFFFFFFFFL));
+        }
+        nextSlot = (int) records;
+    }
+
+    private int allocateSlot() {
+        slotLock.lock();
+        try {
+            return freeCount > 0 ? freeSlots[--freeCount] : nextSlot++;
+        } finally {
+            slotLock.unlock();
+        }
+    }
+
+    private void freeSlot(int slot) {
+        slotLock.lock();
+        try {
+            if (freeCount == freeSlots.length)
+                freeSlots = Arrays.copyOf(freeSlots, freeCount * 2);
+            freeSlots[freeCount++] = slot;
+        } finally {
+            slotLock.unlock();
+        }
+    }
+
+    private void write(ByteBuffer buf, int slot) {
+        try {
+            long pos = (long) slot * RECORD;
+            while (buf.hasRemaining())
+                pos += spill.write(buf, pos);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private ByteBuffer read(int slot) {
+        ByteBuffer buf = ByteBuffer.allocate(RECORD);
+        try {
+            long pos = (long) slot * RECORD;
+            while (buf.hasRemaining()) {
+                if (spill.read(buf, pos + buf.position()) < 0)
+                    throw new EOFException("spill file ends inside slot " + slot);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return buf.flip();
+    }
+}
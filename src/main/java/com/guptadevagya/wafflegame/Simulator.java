@@ -0,0 +1,360 @@
+package com.guptadevagya.wafflegame;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.random.RandomGenerator;
+import java.util.stream.IntStream;
+
+/**
+ * Headless bot games at scale: plays WaffleGame instances to the end with a
+ * {@link Bot} on every core, straight through swap, identifyHints and
+ * isCompleted, and reports throughput, win rate within the swap budget and
+ * how many swaps the wins took.
+ *
+ * Puzzles come from a pool generated up front from one seed (generation
+ * costs far more than playing), so game {@code i} always gets the same
+ * puzzle. The optimal swap count of each pool puzzle is reported too, as a
+ * check on what the scramble produces.
+ *
+ * <pre>
+ * java -cp target/classes com.guptadevagya.wafflegame.Simulator 1000000 [--bot random|greedy|solver] [--swaps N] [--puzzles N] [--threads N] [--seed S]
+ * </pre>
+ */
+public final class Simulator {
+
+    /** Picks the next swap of a game; one instance per worker thread. */
+    interface Strategy {
+        /** Called once per game, before the first move. */
+        default void begin(WaffleGame game) {
+        }
+
+        /**
+         * Puts the cells of the next swap in {@code move[0]} and {@code move[1]},
+         * or returns false to stop. {@code hints} matches the current board.
+         */
+        boolean next(WaffleGame game, Hint[][] hints, RandomGenerator rng, int[] move);
+    }
+
+    /** The built-in strategies. */
+    enum Bot {
+        /** Swaps two random cells that aren't green. */
+        RANDOM {
+            @Override
+            Strategy create() {
+                return new RandomBot();
+            }
+        },
+        /** Tries every swap of two non-green cells and keeps the one whose hints look best. */
+        GREEDY {
+            @Override
+            Strategy create() {
+                return new GreedyBot();
+            }
+        },
+        /** Plays an optimal sequence from {@link SwapSolver}. */
+        SOLVER {
+            @Override
+            Strategy create() {
+                return new SolverBot();
+            }
+        };
+
+        abstract Strategy create();
+    }
+
+    /**
+     * Outcome of a run. {@code used[k]} counts the wins that took {@code k}
+     * swaps; {@code distance[k]} counts the pool puzzles that needed
+     * {@code k} at best.
+     */
+    record Stats(Bot bot, long games, long wins, long swaps, int budget, int threads, long nanos,
+            long[] used, long[] distance) {
+        double gamesPerSecond() {
+            return nanos == 0 ? 0 : games * 1e9 / nanos;
+        }
+
+        double swapsPerSecond() {
+            return nanos == 0 ? 0 : swaps * 1e9 / nanos;
+        }
+
+        double winRate() {
+            return games == 0 ? 0 : (double) wins / games;
+        }
+
+        double meanWinSwaps() {
+            long total = 0;
+            for (int k = 0; k < used.length; k++)
+                total += k * used[k];
+            return wins == 0 ? 0 : (double) total / wins;
+        }
+    }
+
+    // games a worker claims at a time, so the shared counter isn't contended
+    private static final int BATCH = 256;
+
+    private Simulator() {
+    }
+
+    public static void main(String[] args) {
+        if (args.length < 1) {
+            System.err.println("usage: Simulator <games> [--bot random|greedy|solver] [--swaps N] [--puzzles N]"
+                    + " [--threads N] [--seed S]");
+            System.exit(2);
+        }
+        long games = Long.parseLong(args[0]);
+        Bot bot = Bot.SOLVER;
+        int budget = WaffleGame.MAX_SWAPS;
+        int puzzles = 1000;
+        int threads = Runtime.getRuntime().availableProcessors();
+        long seed = System.nanoTime();
+        for (int i = 1; i + 1 < args.length; i += 2) {
+            switch (args[i]) {
+                case "--bot" -> bot = Bot.valueOf(args[i + 1].toUpperCase(Locale.ROOT));
+                case "--swaps" -> budget = Integer.parseInt(args[i + 1]);
+                case "--puzzles" -> puzzles = Integer.parseInt(args[i + 1]);
+                case "--threads" -> threads = Integer.parseInt(args[i + 1]);
+                case "--seed" -> seed = Long.parseLong(args[i + 1]);
+                default -> throw new IllegalArgumentException("unknown option " + args[i]);
+            }
+        }
+
+        long t0 = System.nanoTime();
+        List<Puzzle> pool = pool(puzzles, threads, seed);
+        System.out.printf(Locale.ROOT, "%d puzzles generated in %.2f s%n", pool.size(), (System.nanoTime() - t0) / 1e9);
+
+        Stats s = run(bot, games, budget, pool, threads, seed);
+        System.out.printf(Locale.ROOT, "%s: %d games in %.2f s on %d threads, %.0f games/s, %.0f swaps/s%n",
+                s.bot().name().toLowerCase(Locale.ROOT), s.games(), s.nanos() / 1e9, s.threads(),
+                s.gamesPerSecond(), s.swapsPerSecond());
+        System.out.printf(Locale.ROOT, "won %.2f%% within %d swaps, %.2f swaps per win%n",
+                100 * s.winRate(), s.budget(), s.meanWinSwaps());
+        print("swaps used by wins", s.used(), s.wins());
+        print("optimal swaps at start", s.distance(), pool.size());
+    }
+
+    private static void print(String title, long[] histogram, long total) {
+        System.out.println(title + ":");
+        for (int k = 0; k < histogram.length; k++) {
+            if (histogram[k] == 0)
+                continue;
+            double share = (double) histogram[k] / total;
+            System.out.printf(Locale.ROOT, "  %3d  %6.2f%%  %s%n", k, 100 * share, "#".repeat((int) Math.round(50 * share)));
+        }
+    }
+
+    /** {@code n} puzzles from {@code seed}, generated on {@code threads} cores; the same seed gives the same pool. */
+    static List<Puzzle> pool(int n, int threads, long seed) {
+        long[] seeds = new SplittableRandom(seed).longs(n).toArray();
+        Puzzle[] out = new Puzzle[n];
+        ForkJoinPool fj = new ForkJoinPool(threads);
+        try {
+            fj.submit(() -> IntStream.range(0, n).parallel()
+                    .forEach(i -> out[i] = WaffleGame.fromSeed(seeds[i]))).join();
+        } finally {
+            fj.shutdown();
+        }
+        return List.of(out);
+    }
+
+    /** Plays {@code games} games of {@code bot}, each with {@code budget} swaps, game {@code i} on puzzle {@code i % size}. */
+    static Stats run(Bot bot, long games, int budget, List<Puzzle> puzzles, int threads, long seed) {
+        if (puzzles.isEmpty() || budget < 0 || threads < 1)
+            throw new IllegalArgumentException("need puzzles, a budget and a thread");
+        int maxDistance = 0;
+        int[] distance = new int[puzzles.size()];
+        for (int i = 0; i < distance.length; i++) {
+            distance[i] = SwapSolver.distance(puzzles.get(i).start(), puzzles.get(i).solution());
+            maxDistance = Math.max(maxDistance, distance[i]);
+        }
+        long[] distances = new long[maxDistance + 1];
+        for (int d : distance)
+            distances[d]++;
+
+        AtomicLong next = new AtomicLong();
+        long start = System.nanoTime();
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        List<Future<Tally>> workers = new ArrayList<>(threads);
+        try {
+            SplittableRandom root = new SplittableRandom(seed);
+            for (int t = 0; t < threads; t++) {
+                SplittableRandom rng = root.split();
+                workers.add(pool.submit(() -> play(bot.create(), games, budget, puzzles, next, rng)));
+            }
+            Tally total = new Tally(budget);
+            for (Future<Tally> f : workers)
+                total.add(f.get());
+            return new Stats(bot, games, total.wins, total.swaps, budget, threads, System.nanoTime() - start,
+                    total.used, distances);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("interrupted", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException(e.getCause());
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    /** One worker's counts, merged at the end. */
+    private static final class Tally {
+        long wins;
+        long swaps;
+        final long[] used;
+
+        Tally(int budget) {
+            used = new long[budget + 1];
+        }
+
+        void add(Tally o) {
+            wins += o.wins;
+            swaps += o.swaps;
+            for (int k = 0; k < used.length; k++)
+                used[k] += o.used[k];
+        }
+    }
+
+    private static Tally play(Strategy strategy, long games, int budget, List<Puzzle> puzzles,
+            AtomicLong next, RandomGenerator rng) {
+        Tally tally = new Tally(budget);
+        WaffleGame game = new WaffleGame(puzzles.get(0));
+        // bots swap and look up hints far faster than people; keep them out of the engine metrics
+        game.unmetered();
+        Layout layout = puzzles.get(0).start().layout();
+        Hint[][] hints = new Hint[layout.size()][layout.size()];
+        int[] move = new int[2];
+        for (long from = next.getAndAdd(BATCH); from < games; from = next.getAndAdd(BATCH)) {
+            long to = Math.min(games, from + BATCH);
+            for (long i = from; i < to; i++) {
+                game.reset(puzzles.get((int) (i % puzzles.size())));
+                game.restore(budget, false);
+                strategy.begin(game);
+                game.identifyHints(hints);
+                while (!game.isCompleted() && game.getSwapsRemaining() > 0
+                        && strategy.next(game, hints, rng, move)) {
+                    game.swap(layout.row(move[0]), layout.col(move[0]), layout.row(move[1]), layout.col(move[1]));
+                    tally.swaps++;
+                    game.identifyHints(hints);
+                }
+                if (game.isCompleted()) {
+                    tally.wins++;
+                    tally.used[budget - game.getSwapsRemaining()]++;
+                }
+            }
+        }
+        return tally;
+    }
+
+    /** Collects the letter cells that aren't green into {@code out}; returns how many. */
+    private static int misplaced(WaffleGame game, Hint[][] hints, int[] out) {
+        Layout layout = Layout.of(game.getSize());
+        int n = 0;
+        for (int cell = 0; cell < layout.cells(); cell++) {
+            Hint h = hints[layout.row(cell)][layout.col(cell)];
+            if (h != Hint.CORRECT && h != Hint.BLANK)
+                out[n++] = cell;
+        }
+        return n;
+    }
+
+    private static final class RandomBot implements Strategy {
+        private final int[] open = new int[Layout.MAX_CELLS];
+
+        @Override
+        public boolean next(WaffleGame game, Hint[][] hints, RandomGenerator rng, int[] move) {
+            int n = misplaced(game, hints, open);
+            if (n < 2)
+                return false;
+            int a = rng.nextInt(n);
+            int b = rng.nextInt(n - 1);
+            move[0] = open[a];
+            move[1] = open[b >= a ? b + 1 : b];
+            return true;
+        }
+    }
+
+    /**
+     * One swap of lookahead on the hint colours, as a player who could undo
+     * for free would: each candidate is tried with swapNoCost and scored by
+     * its greens and yellows. Ties are broken at random, so it can't loop.
+     */
+    private static final class GreedyBot implements Strategy {
+        private final int[] open = new int[Layout.MAX_CELLS];
+        private Hint[][] scratch = new Hint[0][0];
+
+        @Override
+        public boolean next(WaffleGame game, Hint[][] hints, RandomGenerator rng, int[] move) {
+            int n = misplaced(game, hints, open);
+            if (n < 2)
+                return false;
+            Layout layout = Layout.of(game.getSize());
+            if (scratch.length != layout.size())
+                scratch = new Hint[layout.size()][layout.size()];
+            int best = -1;
+            int ties = 0;
+            for (int i = 0; i < n; i++) {
+                int ra = layout.row(open[i]);
+                int ca = layout.col(open[i]);
+                for (int j = i + 1; j < n; j++) {
+                    int rb = layout.row(open[j]);
+                    int cb = layout.col(open[j]);
+                    game.swapNoCost(ra, ca, rb, cb);
+                    game.identifyHints(scratch);
+                    int score = score(scratch);
+                    game.swapNoCost(ra, ca, rb, cb);
+                    if (score > best) {
+                        best = score;
+                        ties = 1;
+                    } else if (score < best || rng.nextInt(++ties) != 0) {
+                        continue;
+                    }
+                    move[0] = open[i];
+                    move[1] = open[j];
+                }
+            }
+            return true;
+        }
+
+        // a green is worth more than any number of yellows it displaces
+        private static int score(Hint[][] hints) {
+            int score = 0;
+            for (Hint[] row : hints) {
+                for (Hint h : row) {
+                    if (h == Hint.CORRECT)
+                        score += 32;
+                    else if (h == Hint.WRONG_POSITION)
+                        score++;
+                }
+            }
+            return score;
+        }
+    }
+
+    private static final class SolverBot implements Strategy {
+        private SwapSolver.Result plan;
+        private int step;
+
+        @Override
+        public void begin(WaffleGame game) {
+            plan = game.solve();
+            step = 0;
+        }
+
+        @Override
+        public boolean next(WaffleGame game, Hint[][] hints, RandomGenerator rng, int[] move) {
+            if (step == plan.swaps())
+                return false;
+            move[0] = plan.first(step);
+            move[1] = plan.second(step);
+            step++;
+            return true;
+        }
+    }
+}
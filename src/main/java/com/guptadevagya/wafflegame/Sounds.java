@@ -1,26 +1,175 @@
 package com.guptadevagya.wafflegame;
 
 import javax.sound.sampled.*;
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
-import java.util.Objects;
+import java.util.Arrays;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
 
-final class Sound {
-    private Sound() {
+/**
+ * Sound effects, decoded once into memory and mixed into a single open line
+ * by a dedicated audio thread, so {@link #play()} on the event thread is a
+ * queue offer: no decoding, no new Clip and no allocation. Latency is about
+ * the line buffer, {@link Mixer#BUFFER_FRAMES} frames (~23 ms).
+ *
+ * Missing or undecodable files, or no audio device, leave the game silent.
+ */
+enum Sound {
+    CLICK("sounds/click.wav"),
+    SWAP("sounds/swap.wav"),
+    COMPLETE("sounds/complete.wav");
+
+    private final String resource;
+    // interleaved stereo at Mixer.FORMAT; null if the effect couldn't be loaded
+    private short[] samples;
+
+    Sound(String resource) {
+        this.resource = resource;
+    }
+
+    /** Starts the audio thread, which decodes every effect before it opens the line. */
+    static void start() {
+        Mixer.start();
+    }
+
+    /** Plays this effect; dropped, and counted in {@link Metrics#SOUND_DROPPED}, if the engine is down or behind. */
+    void play() {
+        Mixer.trigger(this);
     }
 
-    static void play(String resourcePath) {
-        try (InputStream in = Objects.requireNonNull(
-                Sound.class.getClassLoader().getResourceAsStream(resourcePath),
-                "Missing resource: " + resourcePath);
-                AudioInputStream ais = AudioSystem.getAudioInputStream(new java.io.BufferedInputStream(in))) {
-
-            Clip clip = AudioSystem.getClip();
-            clip.open(ais);
-            clip.start();
-        } catch (UnsupportedAudioFileException | LineUnavailableException | IOException
-                | NullPointerException ignored) {
-            // fail silent if audio unavailable
+    private static final class Mixer implements Runnable {
+        static final AudioFormat FORMAT = new AudioFormat(44_100f, 16, 2, true, false);
+        static final int MIX_FRAMES = 256;
+        static final int BUFFER_FRAMES = 4 * MIX_FRAMES;
+        static final int VOICES = 8;
+
+        private static final BlockingQueue<Sound> PENDING = new ArrayBlockingQueue<>(16);
+        private static volatile boolean running;
+        private static Thread thread;
+
+        // voices playing, their effects and next sample
+        private final Sound[] voice = new Sound[VOICES];
+        private final int[] position = new int[VOICES];
+        private int active;
+        private final int[] mix = new int[2 * MIX_FRAMES];
+        private final byte[] out = new byte[4 * MIX_FRAMES];
+
+        static synchronized void start() {
+            if (thread != null)
+                return;
+            running = true;
+            thread = Thread.ofPlatform().daemon().name("audio").priority(Thread.MAX_PRIORITY).start(new Mixer());
+        }
+
+        static void trigger(Sound s) {
+            if (!running || !PENDING.offer(s))
+                Metrics.SOUND_DROPPED.increment();
+        }
+
+        @Override
+        public void run() {
+            int loaded = 0;
+            for (Sound s : Sound.values()) {
+                s.samples = decode(s.resource);
+                if (s.samples != null)
+                    loaded++;
+                else
+                    Metrics.SOUND_FAILURES.increment();
+            }
+            try (SourceDataLine line = loaded == 0 ? null : AudioSystem.getSourceDataLine(FORMAT)) {
+                if (line == null)
+                    return;
+                line.open(FORMAT, 4 * BUFFER_FRAMES);
+                line.start();
+                PENDING.clear();
+                loop(line);
+            } catch (LineUnavailableException | IllegalArgumentException | SecurityException e) {
+                // no usable audio device
+                Metrics.SOUND_FAILURES.increment();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                running = false;
+                PENDING.clear();
+            }
+        }
+
+        private void loop(SourceDataLine line) throws InterruptedException {
+            while (true) {
+                // block while silent; otherwise pick up new effects between buffers
+                Sound s = active == 0 ? PENDING.take() : PENDING.poll();
+                for (; s != null; s = PENDING.poll())
+                    addVoice(s);
+                if (active == 0)
+                    continue;
+                mixVoices();
+                // blocks until the line has room, which paces the loop
+                line.write(out, 0, out.length);
+            }
+        }
+
+        private void addVoice(Sound s) {
+            if (s.samples == null)
+                return;
+            int slot = 0;
+            if (active < VOICES) {
+                while (voice[slot] != null)
+                    slot++;
+                active++;
+            } else {
+                // all busy: cut the one furthest along
+                for (int i = 1; i < VOICES; i++) {
+                    if (position[i] > position[slot])
+                        slot = i;
+                }
+            }
+            voice[slot] = s;
+            position[slot] = 0;
+        }
+
+        /** Mixes the next {@link #MIX_FRAMES} frames of every voice into {@link #out}. */
+        private void mixVoices() {
+            Arrays.fill(mix, 0);
+            for (int v = 0; v < VOICES; v++) {
+                if (voice[v] == null)
+                    continue;
+                short[] src = voice[v].samples;
+                int n = Math.min(mix.length, src.length - position[v]);
+                for (int i = 0; i < n; i++)
+                    mix[i] += src[position[v] + i];
+                position[v] += n;
+                if (position[v] >= src.length) {
+                    voice[v] = null;
+                    active--;
+                }
+            }
+            for (int i = 0; i < mix.length; i++) {
+                int x = Math.clamp(mix[i], Short.MIN_VALUE, Short.MAX_VALUE);
+                out[2 * i] = (byte) x;
+                out[2 * i + 1] = (byte) (x >> 8);
+            }
+        }
+
+        /** Reads a resource as interleaved stereo samples in {@link #FORMAT}, or null. */
+        private static short[] decode(String resource) {
+            try (InputStream raw = Sound.class.getClassLoader().getResourceAsStream(resource);
+                    AudioInputStream in = AudioSystem.getAudioInputStream(new BufferedInputStream(raw));
+                    AudioInputStream pcm = AudioSystem.getAudioInputStream(FORMAT, in)) {
+                ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+                pcm.transferTo(bytes);
+                byte[] b = bytes.toByteArray();
+                short[] samples = new short[b.length / 2];
+                for (int i = 0; i < samples.length; i++)
+                    samples[i] = (short) ((b[2 * i] & 0xFF) | b[2 * i + 1] << 8);
+                return samples.length == 0 ? null : samples;
+            } catch (UnsupportedAudioFileException | IOException | IllegalArgumentException
+                    | NullPointerException e) {
+                // missing resource or an unreadable file
+                return null;
+            }
         }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,461 @@
+package com.guptadevagya.wafflegame;
+
+import org.sqlite.SQLiteConfig;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.random.RandomGenerator;
+
+/**
+ * Word and puzzle storage in SQLite, so large word lists and puzzle libraries
+ * are queried on demand instead of being loaded into the heap.
+ *
+ * <pre>
+ * words(word TEXT PRIMARY KEY, c0, c1, c2, c3, c4)   one letter per column, each indexed
+ * puzzles(number INTEGER PRIMARY KEY, start, solution)  21 letters each, in cell order
+ *         + swaps, ambiguous, yellows, rarity, score, tier  see {@link Difficulty}; tier is indexed
+ * </pre>
+ *
+ * {@link #open} is for imports: it adds missing tables, letter columns and
+ * indexes, runs in WAL mode and batches inserts inside a single transaction,
+ * then checkpoints back to a plain rollback journal on close so the file
+ * stands alone. Everything that only reads, including {@link #cached} behind
+ * the game, uses {@link #openReadOnly} and never writes to the file. The
+ * bundled words.db is already in this shape, holding words.txt and
+ * waffles.txt. A store wraps one connection, so its methods are synchronized.
+ */
+final class SqliteStore implements AutoCloseable {
+    static final String EXTENSION = ".db";
+    private static final byte[] HEADER = "SQLite format 3\0".getBytes(StandardCharsets.US_ASCII);
+    private static final int BATCH = 1000;
+    private static final String[] RATING_COLUMNS = {
+            "swaps INTEGER", "ambiguous INTEGER", "yellows INTEGER", "rarity REAL", "score REAL", "tier TEXT" };
+
+    private static final Map<Path, SqliteStore> OPEN = new ConcurrentHashMap<>();
+
+    private static final String SELECT_024 = "SELECT word FROM words WHERE c0 = ? AND c2 = ? AND c4 = ? ORDER BY word";
+    private static final String SELECT_WORD = "SELECT 1 FROM words WHERE word = ?";
+    private static final String SELECT_PUZZLE = "SELECT start, solution FROM puzzles WHERE number = ?";
+    private static final String COUNT_TIER = "SELECT count(*) FROM puzzles WHERE tier = ?";
+    private static final String SELECT_TIER =
+            "SELECT start, solution FROM puzzles WHERE tier = ? ORDER BY number LIMIT 1 OFFSET ?";
+    private static final String SELECT_RATING =
+            "SELECT swaps, ambiguous, yellows, rarity FROM puzzles WHERE number = ? AND score IS NOT NULL";
+
+    private final Connection conn;
+    private final boolean writable;
+    // prepared on first use, so a read-only file missing a table still serves the rest
+    private final Map<String, PreparedStatement> statements = new HashMap<>();
+
+    private SqliteStore(Connection conn, boolean writable) throws SQLException {
+        this.conn = conn;
+        this.writable = writable;
+        if (writable) {
+            try (Statement st = conn.createStatement()) {
+                st.execute("PRAGMA journal_mode=WAL");
+                st.execute("PRAGMA synchronous=NORMAL");
+            }
+            migrate();
+        }
+    }
+
+    /** Opens {@code file} for imports, creating it and upgrading its schema as needed. */
+    static SqliteStore open(Path file) throws SQLException {
+        return open(file, new SQLiteConfig(), true);
+    }
+
+    /** Opens an existing {@code file} for lookups only; the file is never modified. */
+    static SqliteStore openReadOnly(Path file) throws SQLException {
+        SQLiteConfig config = new SQLiteConfig();
+        config.setReadOnly(true);
+        return open(file, config, false);
+    }
+
+    private static SqliteStore open(Path file, SQLiteConfig config, boolean writable) throws SQLException {
+        Connection conn = DriverManager.getConnection("jdbc:sqlite:" + file.toAbsolutePath(), config.toProperties());
+        try {
+            return new SqliteStore(conn, writable);
+        } catch (SQLException e) {
+            conn.close();
+            throw e;
+        }
+    }
+
+    /** Shared, lazily opened read-only store for {@code file}; stays open for the life of the JVM. */
+    static SqliteStore cached(Path file) throws SQLException {
+        Path key = file.toAbsolutePath().normalize();
+        SqliteStore s = OPEN.get(key);
+        if (s != null)
+            return s;
+        SqliteStore opened = openReadOnly(key);
+        s = OPEN.putIfAbsent(key, opened);
+        if (s == null)
+            return opened;
+        opened.close();
+        return s;
+    }
+
+    /** Whether {@code filename} is an existing SQLite database, judged by its header rather than its name. */
+    static boolean isStore(String filename) {
+        try (InputStream in = Files.newInputStream(Path.of(filename))) {
+            return Arrays.equals(in.readNBytes(HEADER.length), HEADER);
+        } catch (IOException | RuntimeException e) {
+            return false;
+        }
+    }
+
+    // ---- lookups ----
+
+    /** Same as {@link Dictionary#get024}, answered from the (c0, c2, c4) index. */
+    synchronized List<String> get024(char a, char b, char c) throws SQLException {
+        PreparedStatement select024 = statement(SELECT_024);
+        select024.setString(1, letter(a));
+        select024.setString(2, letter(b));
+        select024.setString(3, letter(c));
+        List<String> out = new ArrayList<>();
+        try (ResultSet rs = select024.executeQuery()) {
+            while (rs.next())
+                out.add(rs.getString(1));
+        }
+        return out;
+    }
+
+    synchronized boolean isWord(String word) throws SQLException {
+        PreparedStatement selectWord = statement(SELECT_WORD);
+        selectWord.setString(1, word.toUpperCase(Locale.ROOT));
+        try (ResultSet rs = selectWord.executeQuery()) {
+            return rs.next();
+        }
+    }
+
+    /** Every valid 5-letter word in the store, in no particular order. */
+    synchronized List<String> words() throws SQLException {
+        List<String> out = new ArrayList<>();
+        try (Statement st = conn.createStatement();
+                ResultSet rs = st.executeQuery("SELECT word FROM words")) {
+            while (rs.next()) {
+                String w = rs.getString(1);
+                if (w != null && Dictionary.isFiveLettersAZ(w))
+                    out.add(w);
+            }
+        }
+        return out;
+    }
+
+    synchronized int wordCount() throws SQLException {
+        return count("words");
+    }
+
+    synchronized int puzzleCount() throws SQLException {
+        return count("puzzles");
+    }
+
+    /** Puzzle {@code number}; throws IllegalStateException if the store has no such puzzle. */
+    synchronized Puzzle puzzle(int number) throws SQLException {
+        PreparedStatement selectPuzzle = statement(SELECT_PUZZLE);
+        selectPuzzle.setInt(1, number);
+        try (ResultSet rs = selectPuzzle.executeQuery()) {
+            if (!rs.next())
+                throw new IllegalStateException("puzzle number " + number + " not found in database.");
+            return new Puzzle(board(rs.getString(1)), board(rs.getString(2)));
+        }
+    }
+
+    /** A uniformly random puzzle of the given tier; throws IllegalStateException if there is none. */
+    synchronized Puzzle randomPuzzle(Difficulty.Tier tier, RandomGenerator rng) throws SQLException {
+        PreparedStatement countTier = statement(COUNT_TIER);
+        countTier.setString(1, tier.name());
+        int n;
+        try (ResultSet rs = countTier.executeQuery()) {
+            rs.next();
+            n = rs.getInt(1);
+        }
+        if (n == 0)
+            throw new IllegalStateException("no rated " + tier + " puzzles in database.");
+        PreparedStatement selectTier = statement(SELECT_TIER);
+        selectTier.setString(1, tier.name());
+        selectTier.setInt(2, rng.nextInt(n));
+        try (ResultSet rs = selectTier.executeQuery()) {
+            rs.next();
+            return new Puzzle(board(rs.getString(1)), board(rs.getString(2)));
+        }
+    }
+
+    /** Stored rating of puzzle {@code number}, or null if it has not been rated. */
+    synchronized Difficulty difficulty(int number) throws SQLException {
+        PreparedStatement selectRating = statement(SELECT_RATING);
+        selectRating.setInt(1, number);
+        try (ResultSet rs = selectRating.executeQuery()) {
+            if (!rs.next())
+                return null;
+            return new Difficulty(rs.getInt(1), rs.getInt(2), rs.getInt(3), rs.getDouble(4));
+        }
+    }
+
+    // ---- imports ----
+
+    /** Rates every unrated puzzle on {@code threads} cores and stores the results; returns how many. */
+    synchronized int rate(int threads) throws SQLException {
+        List<Integer> numbers = new ArrayList<>();
+        List<Puzzle> puzzles = new ArrayList<>();
+        try (Statement st = conn.createStatement();
+                ResultSet rs = st.executeQuery("SELECT number, start, solution FROM puzzles WHERE score IS NULL")) {
+            while (rs.next()) {
+                numbers.add(rs.getInt(1));
+                puzzles.add(new Puzzle(board(rs.getString(2)), board(rs.getString(3))));
+            }
+        }
+        Difficulty[] ratings = Difficulty.rateAll(puzzles, threads);
+        return transaction(() -> {
+            try (PreparedStatement update = conn.prepareStatement("UPDATE puzzles SET swaps = ?, ambiguous = ?, "
+                    + "yellows = ?, rarity = ?, score = ?, tier = ? WHERE number = ?")) {
+                for (int i = 0; i < ratings.length; i++) {
+                    Difficulty d = ratings[i];
+                    update.setInt(1, d.swaps());
+                    update.setInt(2, d.ambiguous());
+                    update.setInt(3, d.yellows());
+                    update.setDouble(4, d.rarity());
+                    update.setDouble(5, d.score());
+                    update.setString(6, d.tier().name());
+                    update.setInt(7, numbers.get(i));
+                    update.addBatch();
+                    if ((i + 1) % BATCH == 0)
+                        update.executeBatch();
+                }
+                update.executeBatch();
+            }
+            return ratings.length;
+        });
+    }
+
+    /** Adds the valid 5-letter words among {@code words}; returns how many were new. */
+    synchronized int importWords(Iterable<String> words) throws SQLException {
+        return transaction(() -> {
+            int added = 0;
+            try (PreparedStatement insert = conn.prepareStatement(
+                    "INSERT OR IGNORE INTO words(word, c0, c1, c2, c3, c4) VALUES (?, ?, ?, ?, ?, ?)")) {
+                int pending = 0;
+                for (String raw : words) {
+                    String w = raw.trim().toUpperCase(Locale.ROOT);
+                    if (!Dictionary.isFiveLettersAZ(w))
+                        continue;
+                    insert.setString(1, w);
+                    for (int i = 0; i < Board.WORD_LENGTH; i++)
+                        insert.setString(2 + i, String.valueOf(w.charAt(i)));
+                    insert.addBatch();
+                    if (++pending == BATCH) {
+                        added += sum(insert.executeBatch());
+                        pending = 0;
+                    }
+                }
+                if (pending > 0)
+                    added += sum(insert.executeBatch());
+            }
+            return added;
+        });
+    }
+
+    /**
+     * Imports the 5x5 puzzles of a waffles.txt style file, replacing puzzles
+     * with the same number; returns how many were skipped as malformed or
+     * of another size.
+     */
+    synchronized int importPuzzles(Path text) throws SQLException, IOException {
+        requireWritable();
+        conn.setAutoCommit(false);
+        try (PreparedStatement insert = conn.prepareStatement(
+                "INSERT OR REPLACE INTO puzzles(number, start, solution) VALUES (?, ?, ?)")) {
+            int[] pending = { 0 };
+            int skipped = PuzzleFile.read(text, Layout.STANDARD, (number, p) -> {
+                try {
+                    insert.setInt(1, number);
+                    insert.setString(2, p.start().toString());
+                    insert.setString(3, p.solution().toString());
+                    insert.addBatch();
+                    if (++pending[0] == BATCH) {
+                        insert.executeBatch();
+                        pending[0] = 0;
+                    }
+                } catch (SQLException e) {
+                    // the visitor may only throw IOException; unwrapped below
+                    throw new IOException(e);
+                }
+            });
+            if (pending[0] > 0)
+                insert.executeBatch();
+            conn.commit();
+            return skipped;
+        } catch (IOException e) {
+            conn.rollback();
+            if (e.getCause() instanceof SQLException sql)
+                throw sql;
+            throw e;
+        } catch (SQLException | RuntimeException e) {
+            conn.rollback();
+            throw e;
+        } finally {
+            conn.setAutoCommit(true);
+        }
+    }
+
+    @Override
+    public synchronized void close() throws SQLException {
+        try {
+            if (writable && !conn.isClosed()) {
+                // fold the WAL back in so the file can be read, or shipped, on its own
+                try (Statement st = conn.createStatement()) {
+                    st.execute("PRAGMA journal_mode=DELETE");
+                }
+            }
+        } finally {
+            conn.close();
+        }
+    }
+
+    // ---- helpers ----
+
+    private interface Work {
+        int run() throws SQLException;
+    }
+
+    private PreparedStatement statement(String sql) throws SQLException {
+        PreparedStatement ps = statements.get(sql);
+        if (ps == null) {
+            ps = conn.prepareStatement(sql);
+            statements.put(sql, ps);
+        }
+        return ps;
+    }
+
+    private void requireWritable() throws SQLException {
+        if (!writable)
+            throw new SQLException("store was opened read-only");
+    }
+
+    private int transaction(Work work) throws SQLException {
+        requireWritable();
+        conn.setAutoCommit(false);
+        try {
+            int result = work.run();
+            conn.commit();
+            return result;
+        } catch (SQLException | RuntimeException e) {
+            conn.rollback();
+            throw e;
+        } finally {
+            conn.setAutoCommit(true);
+        }
+    }
+
+    // creates missing tables, letter columns and indexes; older words.db files only have (word)
+    private void migrate() throws SQLException {
+        try (Statement st = conn.createStatement()) {
+            st.execute("CREATE TABLE IF NOT EXISTS words(word TEXT PRIMARY KEY)");
+            st.execute("CREATE TABLE IF NOT EXISTS puzzles("
+                    + "number INTEGER PRIMARY KEY, start TEXT NOT NULL, solution TEXT NOT NULL)");
+
+            Set<String> columns = columns(st, "words");
+            boolean added = false;
+            for (int i = 0; i < Board.WORD_LENGTH; i++) {
+                if (columns.add("c" + i)) {
+                    st.execute("ALTER TABLE words ADD COLUMN c" + i + " TEXT");
+                    added = true;
+                }
+            }
+            if (added) {
+                st.execute("UPDATE words SET c0 = substr(word, 1, 1), c1 = substr(word, 2, 1), "
+                        + "c2 = substr(word, 3, 1), c3 = substr(word, 4, 1), c4 = substr(word, 5, 1)");
+            }
+            for (int i = 0; i < Board.WORD_LENGTH; i++)
+                st.execute("CREATE INDEX IF NOT EXISTS words_c" + i + " ON words(c" + i + ")");
+            st.execute("CREATE INDEX IF NOT EXISTS words_c024 ON words(c0, c2, c4)");
+
+            // difficulty ratings, NULL until rate() has seen the puzzle
+            Set<String> rated = columns(st, "puzzles");
+            for (String column : RATING_COLUMNS) {
+                if (rated.add(column.substring(0, column.indexOf(' '))))
+                    st.execute("ALTER TABLE puzzles ADD COLUMN " + column);
+            }
+            st.execute("CREATE INDEX IF NOT EXISTS puzzles_tier ON puzzles(tier, number)");
+        }
+    }
+
+    private static Set<String> columns(Statement st, String table) throws SQLException {
+        Set<String> columns = new HashSet<>();
+        try (ResultSet rs = st.executeQuery("PRAGMA table_info(" + table + ")")) {
+            while (rs.next())
+                columns.add(rs.getString("name"));
+        }
+        return columns;
+    }
+
+    private int count(String table) throws SQLException {
+        try (Statement st = conn.createStatement();
+                ResultSet rs = st.executeQuery("SELECT count(*) FROM " + table)) {
+            rs.next();
+            return rs.getInt(1);
+        }
+    }
+
+    private static int sum(int[] updates) {
+        int n = 0;
+        for (int u : updates)
+            n += Math.max(0, u);
+        return n;
+    }
+
+    private static String letter(char ch) {
+        return String.valueOf(Character.toUpperCase(ch));
+    }
+
+    private static Board board(String letters) {
+        Board b = new Board();
+        for (int i = 0; i < Board.CELLS; i++)
+            b.setLetter(i, letters.charAt(i));
+        return b;
+    }
+
+    /** {@code SqliteStore <store.db> [--words words.txt] [--puzzles waffles.txt] [--rate threads]} */
+    public static void main(String[] args) throws SQLException, IOException {
+        if (args.length < 1) {
+            System.err.println("usage: SqliteStore <store" + EXTENSION
+                    + "> [--words words.txt] [--puzzles waffles.txt] [--rate threads]");
+            System.exit(2);
+        }
+        try (SqliteStore store = open(Path.of(args[0]))) {
+            for (int i = 1; i + 1 < args.length; i += 2) {
+                String value = args[i + 1];
+                switch (args[i]) {
+                    case "--words" -> System.out.println(
+                            "added " + store.importWords(Files.readAllLines(Path.of(value))) + " words");
+                    case "--rate" -> System.out.println("rated " + store.rate(Integer.parseInt(value)) + " puzzles");
+                    case "--puzzles" -> {
+                        int skipped = store.importPuzzles(Path.of(value));
+                        if (skipped > 0)
+                            System.out.println("skipped " + skipped + " malformed or non-5x5 puzzle(s)");
+                    }
+                    default -> throw new IllegalArgumentException("unknown option " + args[i]);
+                }
+            }
+            System.out.println(store.wordCount() + " words, " + store.puzzleCount() + " puzzles in " + args[0]);
+        }
+    }
+}
@@ -0,0 +1,126 @@
+package com.guptadevagya.wafflegame;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+/**
+ * Suggests the next swap within a latency budget.
+ *
+ * Uncached positions are handed to {@link SwapSolver} with the budget as its
+ * deadline, so the answer is optimal whenever the solver finishes in time and
+ * its best split so far otherwise. Every position along an optimal line is
+ * then Zobrist-hashed into a transposition table together with its distance
+ * and next swap. The table lives as long as the advisor, so following a
+ * suggestion, or undoing and redoing, is a single lookup. It is cleared when
+ * the solution changes.
+ *
+ * Not thread-safe; one advisor per game.
+ */
+final class SwapAdvisor {
+    private static final int LETTERS = 27;
+    private static final int TABLE_BITS = 12;
+
+    /** Zobrist keys per (cell, letter code), for boards of any layout. */
+    private static final long[] ZOBRIST = new long[Layout.MAX_CELLS * LETTERS];
+
+    static {
+        SplittableRandom rng = new SplittableRandom(0x5EED_2013L);
+        for (int i = 0; i < ZOBRIST.length; i++)
+            ZOBRIST[i] = rng.nextLong();
+    }
+
+    /**
+     * Swap cells {@code first} and {@code second}, leaving {@code distance}
+     * swaps to go. The distance is the minimum when {@code optimal}, otherwise
+     * just achievable. Both cells are -1 on a solved board.
+     */
+    record Suggestion(int first, int second, int distance, boolean optimal) {
+    }
+
+    // table entry: bits 0..5 distance, bits 6..11 / 12..17 next swap, bit 18 set for a used slot (0 = empty)
+    private static final int USED = 1 << 18;
+
+    private final long[] keys = new long[1 << TABLE_BITS];
+    private final int[] entries = new int[1 << TABLE_BITS];
+    private Board solution = new Board();
+
+    private long hits;
+    private long misses;
+
+    /** Best next swap from {@code position} towards {@code target}, spending about {@code budgetNanos} at most. */
+    Suggestion suggest(Board position, Board target, long budgetNanos) {
+        long deadline = System.nanoTime() + budgetNanos;
+        if (!target.equals(solution)) {
+            solution = target.copy();
+            Arrays.fill(keys, 0);
+            Arrays.fill(entries, 0);
+        }
+        if (position.equals(solution))
+            return new Suggestion(-1, -1, 0, true);
+
+        long hash = hash(position);
+        int e = probe(hash);
+        if (e != 0) {
+            hits++;
+            return new Suggestion((e >>> 6) & 63, (e >>> 12) & 63, e & 63, true);
+        }
+        misses++;
+
+        SwapSolver.Result r = SwapSolver.solve(position, solution, deadline);
+        if (r.optimal()) {
+            // every position on an optimal line is itself solved optimally by the rest of it
+            Board b = position.copy();
+            for (int i = 0; i < r.swaps(); i++) {
+                store(hash, USED | (r.swaps() - i) | (r.first(i) << 6) | (r.second(i) << 12));
+                hash ^= swapKey(b, r.first(i), r.second(i));
+                b.swap(r.first(i), r.second(i));
+            }
+        }
+        return new Suggestion(r.first(0), r.second(0), r.swaps(), r.optimal());
+    }
+
+    /** Calls answered straight from the table. */
+    long hits() {
+        return hits;
+    }
+
+    /** Calls that had to search. */
+    long misses() {
+        return misses;
+    }
+
+    private static long swapKey(Board b, int x, int y) {
+        int lx = b.get(x);
+        int ly = b.get(y);
+        return ZOBRIST[x * LETTERS + lx] ^ ZOBRIST[x * LETTERS + ly]
+                ^ ZOBRIST[y * LETTERS + ly] ^ ZOBRIST[y * LETTERS + lx];
+    }
+
+    private static long hash(Board b) {
+        long h = 0;
+        for (int i = 0; i < b.layout().cells(); i++)
+            h ^= ZOBRIST[i * LETTERS + b.get(i)];
+        return h;
+    }
+
+    // two-way buckets: a slot and its neighbour
+
+    private int probe(long hash) {
+        int s = slot(hash);
+        if (keys[s] == hash)
+            return entries[s];
+        return keys[s ^ 1] == hash ? entries[s ^ 1] : 0;
+    }
+
+    private void store(long hash, int entry) {
+        int s = slot(hash);
+        if (keys[s] != hash && entries[s] != 0 && (keys[s ^ 1] == hash || entries[s ^ 1] == 0))
+            s ^= 1;
+        keys[s] = hash;
+        entries[s] = entry;
+    }
+
+    private static int slot(long hash) {
+        return (int) (hash >>> (64 - TABLE_BITS));
+    }
+}
@@ -0,0 +1,190 @@
+package com.guptadevagya.wafflegame;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Exact minimum number of swaps from a board to its solution, with one
+ * optimal swap sequence.
+ *
+ * Every misplaced cell is an edge in a graph on letters, from the letter it
+ * holds to the letter it needs. The edges split into cycles, and a cycle of
+ * k edges costs k - 1 swaps, so the answer is edges minus the largest number
+ * of cycles they can be split into. With distinct letters the split is
+ * forced; with repeated letters it is a choice. Two-cycles (two cells that
+ * just need to trade) are always taken first, which never loses; the rest is
+ * a branch-and-bound over the simple cycles through the smallest letter
+ * left, bounded by edges / 3 more cycles since no two-cycles remain.
+ *
+ * The search is anytime: given a deadline it stops there and returns the
+ * best split found so far, flagged as not proven optimal.
+ */
+final class SwapSolver {
+    private static final int LETTERS = 27; // letter codes, 0 for an empty cell
+
+    /**
+     * {@code swaps} and one sequence reaching it: swap {@code i} exchanges
+     * cells {@code moves[2 * i]} and {@code moves[2 * i + 1]}. The count is
+     * the minimum unless a deadline cut the search short ({@code optimal}
+     * false). {@code nodes} counts search nodes.
+     */
+    record Result(int swaps, int[] moves, long nodes, boolean optimal) {
+        int first(int i) {
+            return moves[2 * i];
+        }
+
+        int second(int i) {
+            return moves[2 * i + 1];
+        }
+    }
+
+    private final int[][] edges = new int[LETTERS][LETTERS];
+    private final List<int[]> cycles = new ArrayList<>();
+    private List<int[]> best;
+    private int remaining;
+    private long nodes;
+    private long deadline;
+    private boolean timedOut;
+
+    private SwapSolver() {
+    }
+
+    /** Solves {@code start} towards {@code solution}; throws if their letters differ as multisets. */
+    static Result solve(Board start, Board solution) {
+        return new SwapSolver().run(start, solution, Long.MAX_VALUE);
+    }
+
+    /** Like {@link #solve(Board, Board)}, but settles for the best split found once {@link System#nanoTime()} passes {@code deadline}. */
+    static Result solve(Board start, Board solution, long deadline) {
+        return new SwapSolver().run(start, solution, deadline);
+    }
+
+    /** Just the distance; same search as {@link #solve}. */
+    static int distance(Board start, Board solution) {
+        return solve(start, solution).swaps();
+    }
+
+    private Result run(Board start, Board solution, long deadline) {
+        this.deadline = deadline;
+        if (start.layout() != solution.layout())
+            throw new IllegalArgumentException("board and solution have different layouts");
+        int size = start.layout().cells();
+        // cells per (held, needed) letter pair, consumed as cycles are turned into swaps
+        int[][] cells = new int[LETTERS * LETTERS][];
+        int[] balance = new int[LETTERS];
+        for (int i = 0; i < size; i++) {
+            int have = start.get(i);
+            int need = solution.get(i);
+            balance[have]++;
+            balance[need]--;
+            if (have == need)
+                continue;
+            int key = have * LETTERS + need;
+            cells[key] = cells[key] == null ? new int[] { i } : append(cells[key], i);
+            edges[have][need]++;
+            remaining++;
+        }
+        for (int b : balance) {
+            if (b != 0)
+                throw new IllegalArgumentException("board and solution have different letters");
+        }
+
+        // two-cycles first
+        for (int a = 0; a < LETTERS; a++) {
+            for (int b = a + 1; b < LETTERS; b++) {
+                int n = Math.min(edges[a][b], edges[b][a]);
+                for (int k = 0; k < n; k++)
+                    cycles.add(new int[] { a, b });
+                edges[a][b] -= n;
+                edges[b][a] -= n;
+                remaining -= 2 * n;
+            }
+        }
+        search();
+
+        int[] used = new int[LETTERS * LETTERS];
+        int[] moves = new int[2 * size];
+        int n = 0;
+        for (int[] cycle : best) {
+            int k = cycle.length;
+            int[] x = new int[k];
+            for (int i = 0; i < k; i++) {
+                int key = cycle[i] * LETTERS + cycle[(i + 1) % k];
+                x[i] = cells[key][used[key]++];
+            }
+            // x[i] holds cycle[i] and needs cycle[i + 1]; trading through x[0] fixes one cell per swap
+            for (int i = k - 1; i >= 1; i--) {
+                moves[n++] = x[0];
+                moves[n++] = x[i];
+            }
+        }
+        return new Result(n / 2, Arrays.copyOf(moves, n), nodes, !timedOut);
+    }
+
+    private void search() {
+        // only give up once there is an answer to give
+        if ((++nodes & 15) == 0 && best != null && deadline != Long.MAX_VALUE && System.nanoTime() - deadline > 0)
+            timedOut = true;
+        if (timedOut)
+            return;
+        if (remaining == 0) {
+            if (best == null || cycles.size() > best.size())
+                best = new ArrayList<>(cycles);
+            return;
+        }
+        if (best != null && cycles.size() + remaining / 3 <= best.size())
+            return;
+        int v = 0;
+        while (rowEmpty(v))
+            v++;
+        // each level gets its own path: closing a cycle recurses while this one is still open
+        int[] path = new int[LETTERS];
+        boolean[] onPath = new boolean[LETTERS];
+        path[0] = v;
+        onPath[v] = true;
+        extend(path, onPath, v, 1);
+    }
+
+    // grows a simple path of len edges from path[0]; closes it into a cycle whenever an edge leads back
+    private void extend(int[] path, boolean[] onPath, int u, int len) {
+        if (timedOut)
+            return;
+        // the open path becomes one cycle of at least len edges, everything else cycles of three or more
+        if (best != null && cycles.size() + 1 + (remaining - len) / 3 <= best.size())
+            return;
+        int start = path[0];
+        for (int w = start; w < LETTERS; w++) {
+            if (edges[u][w] == 0)
+                continue;
+            edges[u][w]--;
+            if (w == start) {
+                remaining -= len;
+                cycles.add(Arrays.copyOf(path, len));
+                search();
+                cycles.remove(cycles.size() - 1);
+                remaining += len;
+            } else if (!onPath[w]) {
+                path[len] = w;
+                onPath[w] = true;
+                extend(path, onPath, w, len + 1);
+                onPath[w] = false;
+            }
+            edges[u][w]++;
+        }
+    }
+
+    private boolean rowEmpty(int v) {
+        for (int w = 0; w < LETTERS; w++) {
+            if (edges[v][w] != 0)
+                return false;
+        }
+        return true;
+    }
+
+    private static int[] append(int[] a, int x) {
+        int[] out = Arrays.copyOf(a, a.length + 1);
+        out[a.length] = x;
+        return out;
+    }
+}
@@ -18,6 +18,7 @@ final class Theme {
     static final Color L_ABSENT = new Color(0xD7DADE);
     static final Color L_BLANK = new Color(0xF4F6F8);
     static final Color L_SELECT = new Color(0x3F7EF5);
+    static final Color L_HINT = new Color(0x9A5CF0);
 
     // Dark palette (true dark)
     static final Color D_BG = new Color(0x15171A);
@@ -31,9 +32,10 @@ final class Theme {
     static final Color D_ABSENT = new Color(0x3A3F45);
     static final Color D_BLANK = new Color(0x24282E);
     static final Color D_SELECT = new Color(0x6AA2FF);
+    static final Color D_HINT = new Color(0xB88CFF);
 
     // active palette
-    static Color BG, PANEL, SHADOW, TEXT, TILE_FACE, CORRECT, PRESENT, ABSENT, BLANK, SELECT;
+    static Color BG, PANEL, SHADOW, TEXT, TILE_FACE, CORRECT, PRESENT, ABSENT, BLANK, SELECT, HINT;
 
     static void setDark(boolean dark) {
         if (dark) {
@@ -47,6 +49,7 @@ final class Theme {
             ABSENT = D_ABSENT;
             BLANK = D_BLANK;
             SELECT = D_SELECT;
+            HINT = D_HINT;
         } else {
             BG = L_BG;
             PANEL = L_PANEL;
@@ -58,6 +61,7 @@ final class Theme {
             ABSENT = L_ABSENT;
             BLANK = L_BLANK;
             SELECT = L_SELECT;
+            HINT = L_HINT;
         }
     }
 
@@ -0,0 +1,382 @@
+package com.guptadevagya.wafflegame;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+
+/**
+ * Checks whether a puzzle's letters spell only its own solution.
+ *
+ * The green cells (start letter already right) stay fixed; every other cell
+ * may take any letter left in the start board's multiset. The six slots are
+ * filled by the same most-constrained-first search as {@link BoardGenerator},
+ * except that a position only admits letters with copies left, every open
+ * cell is narrowed to the letters its slots' candidates agree on, and a branch
+ * is dropped once some letter has more copies left than cells to take them.
+ * Words may repeat: a grid that uses a word twice still reads as valid words
+ * to the player.
+ *
+ * Not thread-safe; scratch buffers are reused between calls.
+ */
+final class UniquenessChecker {
+    private static final int SLOTS = Board.WORDS;
+    private static final int LEN = Board.WORD_LENGTH;
+    private static final int DEAD = -1;
+    private static final int DONE = -2;
+
+    /**
+     * {@code solutions} valid grids were found, counting the solution itself
+     * and stopping at the limit; {@code alternative} is the first one that
+     * differs from the solution, or null. {@code finished} is false when the
+     * node budget ran out first, in which case uniqueness is unknown.
+     */
+    record Result(int solutions, Board alternative, long nodes, boolean finished) {
+        boolean unique() {
+            return finished && alternative == null;
+        }
+    }
+
+    private final PatternIndex words;
+
+    /** The words that fit the current puzzle's letters, rebuilt per call. */
+    private PatternIndex index;
+    /** Candidate words per depth and slot. */
+    private long[][][] masks;
+    private int[][] candidates;
+    /** Allowed letters per depth and cell (bit 0 = 'A'). */
+    private final int[][] domains = new int[SLOTS + 1][Board.CELLS];
+    private final int[] counts = new int[SLOTS];
+    /** Letters (bit 0 = 'A') that don't occur on the board. */
+    private int absent;
+    private final int[] allowed = new int[LEN];
+    private final int[] assigned = new int[SLOTS];
+    private final int[] letters = new int[Board.CELLS];
+    private final int[] refs = new int[Board.CELLS];
+    /** Copies of each letter code on the board the index was narrowed for. */
+    private final int[] have = new int[27];
+    /** Copies left of each letter code for the open cells. */
+    private final int[] left = new int[27];
+
+    private Board solution;
+    private Board alternative;
+    private int limit;
+    private int found;
+    private long nodes;
+    private long maxNodes;
+
+    UniquenessChecker() {
+        this(Dictionary.patterns());
+    }
+
+    UniquenessChecker(PatternIndex words) {
+        this.words = words;
+    }
+
+    /** Stops as soon as a second grid turns up. */
+    Result check(Puzzle p) {
+        return count(p, 2, Long.MAX_VALUE);
+    }
+
+    /** Like {@link #check} but gives up, unfinished, after {@code maxNodes} word placements. */
+    Result check(Puzzle p, long maxNodes) {
+        return count(p, 2, maxNodes);
+    }
+
+    /** Counts valid grids for the puzzle's letters and greens, up to {@code limit}. */
+    Result count(Puzzle p, int limit, long maxNodes) {
+        Board start = p.start();
+        this.solution = p.solution();
+        this.alternative = null;
+        this.limit = limit;
+        this.found = 0;
+        this.nodes = 0;
+        this.maxNodes = maxNodes;
+        Arrays.fill(assigned, -1);
+        Arrays.fill(left, 0);
+        for (int i = 0; i < Board.CELLS; i++) {
+            int l = start.get(i);
+            if (l == solution.get(i)) {
+                // greens are pinned: a reference that is never released
+                letters[i] = l;
+                refs[i] = 1;
+            } else {
+                letters[i] = 0;
+                refs[i] = 0;
+                left[l]++;
+            }
+        }
+        narrow(start);
+        try {
+            boolean stopped = search(0);
+            return new Result(found, alternative, nodes, !stopped || found >= limit);
+        } finally {
+            this.solution = null;
+            this.alternative = null;
+        }
+    }
+
+    /** Checks every puzzle on {@code threads} cores; results line up with {@code puzzles}. */
+    static Result[] checkAll(List<Puzzle> puzzles, int threads) {
+        Result[] out = new Result[puzzles.size()];
+        ThreadLocal<UniquenessChecker> checkers = ThreadLocal.withInitial(UniquenessChecker::new);
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        try {
+            pool.submit(() -> IntStream.range(0, out.length).parallel()
+                    .forEach(i -> out[i] = checkers.get().check(puzzles.get(i)))).join();
+        } finally {
+            pool.shutdown();
+        }
+        return out;
+    }
+
+    /**
+     * Restricts the search to words whose letters all occur often enough on
+     * the board, about a tenth of the list, so the bitset queries below touch
+     * a few dozen blocks instead of hundreds. Kept while the letters stay the
+     * same, as they do when a board is re-checked after swaps.
+     */
+    private void narrow(Board start) {
+        int[] counted = new int[27];
+        for (int i = 0; i < Board.CELLS; i++)
+            counted[start.get(i)]++;
+        if (index != null && Arrays.equals(counted, have))
+            return;
+        System.arraycopy(counted, 0, have, 0, have.length);
+        absent = PatternIndex.ANY;
+        for (int l = 1; l < have.length; l++) {
+            if (have[l] > 0)
+                absent &= ~(1 << (l - 1));
+        }
+        int[] fit = new int[words.size()];
+        int n = 0;
+        int[] need = new int[27];
+        for (int id = 0; id < words.size(); id++) {
+            boolean ok = true;
+            for (int pos = 0; pos < LEN && ok; pos++) {
+                int l = words.letter(id, pos) + 1;
+                ok = ++need[l] <= have[l];
+            }
+            for (int pos = 0; pos < LEN; pos++)
+                need[words.letter(id, pos) + 1] = 0;
+            if (ok)
+                fit[n++] = id;
+        }
+        index = new PatternIndex(words, fit, n);
+        masks = new long[SLOTS + 1][SLOTS][index.blocks()];
+        candidates = new int[SLOTS][index.size()];
+    }
+
+    /** Returns true once the limit or the node budget is reached. */
+    private boolean search(int depth) {
+        int slot = propagate(depth);
+        if (slot == DEAD)
+            return false;
+        if (slot == DONE) {
+            found++;
+            if (alternative == null && !matches(solution)) {
+                alternative = new Board();
+                for (int i = 0; i < Board.CELLS; i++)
+                    alternative.set(i, letters[i]);
+            }
+            return found >= limit;
+        }
+
+        int[] buf = candidates[depth];
+        int n = collect(masks[depth][slot], buf);
+        for (int k = 0; k < n; k++) {
+            if (++nodes > maxNodes)
+                return true;
+            if (!place(slot, buf[k]))
+                continue;
+            if (search(depth + 1))
+                return true;
+            unplace(slot);
+        }
+        return false;
+    }
+
+    private boolean matches(Board b) {
+        for (int i = 0; i < Board.CELLS; i++) {
+            if (letters[i] != b.get(i))
+                return false;
+        }
+        return true;
+    }
+
+    /**
+     * Fills {@code masks[depth]} with each open slot's candidates and returns
+     * the slot with the fewest, {@link #DONE} if none is open, or
+     * {@link #DEAD} if the position can't be completed.
+     *
+     * Open cells start out allowing any letter with copies left. Each cell is
+     * then narrowed to the letters some candidate of its slot has there, and a
+     * crossing slot that loses letters is refilled, until nothing changes.
+     */
+    private int propagate(int depth) {
+        int free = 0;
+        for (int l = 1; l < left.length; l++) {
+            if (left[l] > 0)
+                free |= 1 << (l - 1);
+        }
+        int[] dom = domains[depth];
+        for (int i = 0; i < Board.CELLS; i++) {
+            int l = letters[i];
+            dom[i] = l == 0 ? free : 1 << (l - 1);
+        }
+        int open = 0;
+        for (int s = 0; s < SLOTS; s++) {
+            if (assigned[s] < 0)
+                open |= 1 << s;
+        }
+        if (open == 0)
+            return DONE;
+
+        // a slot's candidates only shrink going down, so each depth refines its parent's
+        long[][] m = masks[depth];
+        for (int dirty = open, first = open; dirty != 0;) {
+            int s = Integer.numberOfTrailingZeros(dirty);
+            dirty &= dirty - 1;
+            int[] cells = Board.WORD_CELLS[s];
+            // letters not on the board are in none of the words, so allowing them
+            // costs nothing and lets the index OR the few excluded letters instead
+            for (int pos = 0; pos < LEN; pos++)
+                allowed[pos] = dom[cells[pos]] | absent;
+            if ((first & (1 << s)) == 0)
+                counts[s] = index.refine(allowed, m[s], m[s]);
+            else if (depth == 0)
+                counts[s] = index.fill(allowed, m[s]);
+            else
+                counts[s] = index.refine(allowed, masks[depth - 1][s], m[s]);
+            first &= ~(1 << s);
+            if (counts[s] == 0)
+                return DEAD;
+            for (int pos = 0; pos < LEN; pos++) {
+                int cell = cells[pos];
+                if (letters[cell] != 0)
+                    continue;
+                int supported = index.lettersAt(m[s], pos, dom[cell]);
+                if (supported != dom[cell]) {
+                    dom[cell] = supported;
+                    dirty |= Board.CELL_WORDS[cell] & open & ~(1 << s);
+                }
+            }
+        }
+
+        // every copy left needs an open cell that can take it, and a cell
+        // down to one letter takes a copy for sure
+        int[] room = new int[left.length];
+        int[] forced = new int[left.length];
+        for (int i = 0; i < Board.CELLS; i++) {
+            if (letters[i] != 0)
+                continue;
+            for (int d = dom[i]; d != 0; d &= d - 1)
+                room[Integer.numberOfTrailingZeros(d) + 1]++;
+            if (Integer.bitCount(dom[i]) == 1)
+                forced[Integer.numberOfTrailingZeros(dom[i]) + 1]++;
+        }
+        for (int l = 1; l < left.length; l++) {
+            if (room[l] < left[l] || forced[l] > left[l])
+                return DEAD;
+        }
+
+        int slot = DONE;
+        for (int s = 0; s < SLOTS; s++) {
+            if ((open & (1 << s)) != 0 && (slot == DONE || counts[s] < counts[slot]))
+                slot = s;
+        }
+        return slot;
+    }
+
+    private static int collect(long[] mask, int[] out) {
+        int n = 0;
+        for (int b = 0; b < mask.length; b++) {
+            for (long m = mask[b]; m != 0; m &= m - 1)
+                out[n++] = (b << 6) | Long.numberOfTrailingZeros(m);
+        }
+        return n;
+    }
+
+    /** Places word {@code id}, or returns false if the letters left can't cover it. */
+    private boolean place(int slot, int id) {
+        int[] cells = Board.WORD_CELLS[slot];
+        boolean fits = true;
+        for (int i = 0; i < LEN; i++) {
+            if (letters[cells[i]] == 0 && --left[index.letter(id, i) + 1] < 0)
+                fits = false;
+        }
+        if (!fits) {
+            for (int i = 0; i < LEN; i++) {
+                if (letters[cells[i]] == 0)
+                    left[index.letter(id, i) + 1]++;
+            }
+            return false;
+        }
+        assigned[slot] = id;
+        for (int i = 0; i < LEN; i++) {
+            letters[cells[i]] = index.letter(id, i) + 1;
+            refs[cells[i]]++;
+        }
+        return true;
+    }
+
+    private void unplace(int slot) {
+        assigned[slot] = -1;
+        for (int cell : Board.WORD_CELLS[slot]) {
+            if (--refs[cell] == 0) {
+                left[letters[cell]]++;
+                letters[cell] = 0;
+            }
+        }
+    }
+
+    /** {@code UniquenessChecker <puzzles.txt|.wafl> [--threads N]}: lists puzzles with more than one grid. */
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1) {
+            System.err.println("usage: UniquenessChecker <puzzles.txt|" + PuzzleArchive.EXTENSION + "> [--threads N]");
+            System.exit(2);
+        }
+        int threads = Runtime.getRuntime().availableProcessors();
+        if (args.length >= 3 && args[1].equals("--threads"))
+            threads = Integer.parseInt(args[2]);
+
+        Path file = Path.of(args[0]);
+        List<Integer> numbers = new ArrayList<>();
+        List<Puzzle> puzzles = new ArrayList<>();
+        if (PuzzleArchive.isArchive(args[0])) {
+            try (PuzzleArchive a = PuzzleArchive.open(file)) {
+                for (int n = a.first(); n <= a.last(); n++) {
+                    if (a.contains(n)) {
+                        numbers.add(n);
+                        puzzles.add(a.get(n));
+                    }
+                }
+            }
+        } else {
+            int skipped = PuzzleFile.read(file, Layout.STANDARD, (n, p) -> {
+                numbers.add(n);
+                puzzles.add(p);
+            });
+            if (skipped > 0)
+                System.err.println("skipped " + skipped + " malformed or non-5x5 puzzle(s)");
+        }
+
+        long t0 = System.nanoTime();
+        Result[] results = checkAll(puzzles, threads);
+        long nanos = System.nanoTime() - t0;
+        int ambiguous = 0;
+        for (int i = 0; i < results.length; i++) {
+            Board alt = results[i].alternative();
+            if (alt != null) {
+                ambiguous++;
+                System.out.println(numbers.get(i) + "," + puzzles.get(i).solution() + "," + alt);
+            }
+        }
+        System.err.printf(Locale.ROOT, "%d of %d puzzles have more than one grid; checked in %.1f ms on %d threads%n",
+                ambiguous, results.length, nanos / 1e6, threads);
+    }
+}
@@ -24,6 +24,14 @@ public class WaffleGUI {
             FlatLightLaf.setup();
         Theme.setDark(dark);
 
+        // time every event from the start, so slow startup work shows up too
+        EdtWatchdog.install();
+        Metrics.publish();
+
+        // start filling the puzzle bank and decoding sounds while the welcome screen is up
+        PuzzleBank.shared();
+        Sound.start();
+
         SwingUtilities.invokeLater(() -> {
             JFrame window = new JFrame("Waffle");
             window.setDefaultCloseOperation(WindowConstants.EXIT_ON_CLOSE);
@@ -1,105 +1,229 @@
 package com.guptadevagya.wafflegame;
 
-import java.io.File;
 import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.sql.SQLException;
 import java.util.*;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Supplier;
+import java.util.random.RandomGenerator;
 
 public class WaffleGame {
 
     public static final int WAFFLE_SIZE = 5;
     public static final int MAX_SWAPS = 20;
-
-    private static final Random RNG = new Random();
-
-    private char[][] puzzle;
-    private char[][] solution;
+    private static final int SCRAMBLE_SWAPS = 60;
+    // word placements a uniqueness check may take before the scramble is eased instead
+    private static final long UNIQUE_NODE_BUDGET = 500;
+
+    // shared rather than per thread, so virtual request threads don't each build their own
+    private static final Pool<BoardGenerator> GENERATORS = new Pool<>(BoardGenerator::new);
+    private static final Pool<UniquenessChecker> CHECKERS = new Pool<>(UniquenessChecker::new);
+
+    // packed state; the char[][] grids below are read-only views for the UI.
+    // All four are replaced when a puzzle of another size is loaded.
+    private Board puzzle = new Board();
+    private Board solution = new Board();
+    private char[][] puzzleView = new char[WAFFLE_SIZE][WAFFLE_SIZE];
+    private char[][] solutionView = new char[WAFFLE_SIZE][WAFFLE_SIZE];
     private int swapsRemaining;
     private boolean gaveUp = false;
+    private long generationNodes;
+    private String puzzleCode; // set while playing a puzzle generated from a seed
+    private final HintEngine hintEngine = new HintEngine();
+    private SwapAdvisor advisor; // created on first suggestSwap
+    private boolean metered = true; // false for bot games, which would swamp the player figures
 
     public WaffleGame(String filename, int puzzleNumber) throws FileNotFoundException {
-        this.puzzle = new char[WAFFLE_SIZE][WAFFLE_SIZE];
-        this.solution = new char[WAFFLE_SIZE][WAFFLE_SIZE];
-        this.swapsRemaining = MAX_SWAPS;
         loadPuzzleFromFile(filename, puzzleNumber);
+        this.swapsRemaining = maxSwaps(puzzle.layout());
     }
 
     WaffleGame(char[][] puzzle, char[][] solution) {
-        this.puzzle = puzzle;
-        this.solution = solution;
-        this.swapsRemaining = MAX_SWAPS;
+        this(Board.fromGrid(puzzle), Board.fromGrid(solution));
+    }
+
+    /** Any size; the layout comes from the boards. */
+    WaffleGame(Board puzzle, Board solution) {
+        this.swapsRemaining = maxSwaps(puzzle.layout());
+        load(puzzle, solution);
+    }
+
+    WaffleGame(Puzzle puzzle) {
+        this(puzzle.start(), puzzle.solution());
+        this.puzzleCode = puzzle.code();
     }
 
     public static WaffleGame randomFromDatabase() {
-        WaffleGame g = new WaffleGame(new char[WAFFLE_SIZE][WAFFLE_SIZE], new char[WAFFLE_SIZE][WAFFLE_SIZE]);
+        WaffleGame g = new WaffleGame(new Board(), new Board());
         g.resetToRandom();
         return g;
     }
 
+    /** A new puzzle from a fresh seed, so it can be shared with {@link #getPuzzleCode()}. */
     public void resetToRandom() {
-        this.swapsRemaining = MAX_SWAPS;
+        resetToSeed(ThreadLocalRandom.current().nextLong());
+    }
+
+    /** Same as {@link #resetToRandom()}, drawing every choice from {@code rng}. */
+    void resetToRandom(RandomGenerator rng) {
+        BoardGenerator generator = GENERATORS.take();
+        BoardGenerator.Result result;
+        try {
+            result = buildRandomSolutionFromDictionary(generator, rng);
+        } finally {
+            GENERATORS.give(generator);
+        }
+        reset(new Puzzle(scramblePuzzleFromSolution(result.board(), rng, SCRAMBLE_SWAPS), result.board()));
+        generationNodes = result.nodes();
+    }
+
+    /** Starts the puzzle of {@link #fromSeed(long)}. */
+    public void resetToSeed(long seed) {
+        resetToRandom(new SplittableRandom(seed));
+        puzzleCode = PuzzleCode.of(seed);
+    }
+
+    /** Starts the puzzle a {@link PuzzleCode} names; throws IllegalArgumentException for a bad code. */
+    public void resetToCode(String code) {
+        resetToSeed(PuzzleCode.parse(code));
+    }
+
+    /** Starts over on a ready-made puzzle, e.g. one taken from the {@link PuzzleBank}, keeping its code. */
+    void reset(Puzzle p) {
+        this.swapsRemaining = maxSwaps(p.start().layout());
         this.gaveUp = false;
-        buildRandomSolutionFromDictionary();
-        scramblePuzzleFromSolution(60);
+        this.generationNodes = 0;
+        this.puzzleCode = p.code();
+        load(p.start(), p.solution());
+    }
+
+    /** Generates a random puzzle without touching any game; safe to call from any thread. */
+    static Puzzle generate(RandomGenerator rng) {
+        BoardGenerator generator = GENERATORS.take();
+        try {
+            return generate(generator, rng);
+        } finally {
+            GENERATORS.give(generator);
+        }
     }
 
+    /**
+     * The puzzle for {@code seed}. Generation draws only from a
+     * SplittableRandom seeded with it, so the same seed gives the same board
+     * and scramble on any thread and any JVM, given the same dictionary.
+     */
+    static Puzzle fromSeed(long seed) {
+        Puzzle p = generate(new SplittableRandom(seed));
+        return new Puzzle(p.start(), p.solution(), PuzzleCode.of(seed));
+    }
+
+    /**
+     * Generates a puzzle of the generator's size, e.g. 7x7 from a
+     * {@link BoardGenerator} over {@code Dictionary.ofLength(7)}.
+     */
+    static Puzzle generate(BoardGenerator generator, RandomGenerator rng) {
+        Board solution = buildRandomSolutionFromDictionary(generator, rng).board();
+        int swaps = SCRAMBLE_SWAPS * solution.layout().cells() / Board.CELLS;
+        return new Puzzle(scramblePuzzleFromSolution(solution, rng, swaps), solution);
+    }
+
+    /** Swaps allowed on a board: one fewer than its cells, which solves any scramble. */
+    static int maxSwaps(Layout layout) {
+        return layout.cells() - 1;
+    }
+
+    /** Loads a puzzle from a text file (of any size), a .wafl archive or a SQLite store. */
     public void resetToFile(String filename, int puzzleNumber) throws FileNotFoundException {
-        this.swapsRemaining = MAX_SWAPS;
-        this.gaveUp = false;
         loadPuzzleFromFile(filename, puzzleNumber);
+        this.swapsRemaining = maxSwaps(puzzle.layout());
+        this.gaveUp = false;
+        this.puzzleCode = null;
     }
 
     private void loadPuzzleFromFile(String filename, int puzzleNumber) throws FileNotFoundException {
-        File file = new File(filename);
-        try (Scanner input = new Scanner(file)) {
-            if (findPuzzleInFile(input, puzzleNumber)) {
-                loadGrid(input, this.puzzle);
-                loadGrid(input, this.solution);
-            } else {
-                throw new IllegalStateException("puzzle number " + puzzleNumber + " not found in file.");
-            }
+        generationNodes = 0;
+        if (PuzzleArchive.isArchive(filename)) {
+            Puzzle p = openArchive(filename).get(puzzleNumber);
+            load(p.start(), p.solution());
+            return;
+        }
+        // by header, so a text file named .db still loads as text
+        if (SqliteStore.isStore(filename)) {
+            Puzzle p = storePuzzle(filename, puzzleNumber);
+            load(p.start(), p.solution());
+            return;
+        }
+        try {
+            Puzzle p = PuzzleFile.find(Path.of(filename), puzzleNumber);
+            load(p.start(), p.solution());
+        } catch (NoSuchFileException e) {
+            FileNotFoundException fnf = new FileNotFoundException(filename);
+            fnf.initCause(e);
+            throw fnf;
+        } catch (IOException e) {
+            throw new IllegalStateException("failed to read " + filename, e);
         }
     }
 
-    private boolean findPuzzleInFile(Scanner input, int puzzleNumber) {
-        while (input.hasNextLine()) {
-            if (input.hasNextInt() && input.nextInt() == puzzleNumber) {
-                input.nextLine();
-                return true;
-            }
-            input.nextLine();
+    // archives are mapped once and shared, so repeated resetToFile calls don't re-read the file
+    private static PuzzleArchive openArchive(String filename) throws FileNotFoundException {
+        try {
+            return PuzzleArchive.cached(Path.of(filename));
+        } catch (IOException e) {
+            FileNotFoundException fnf = new FileNotFoundException(filename + ": " + e.getMessage());
+            fnf.initCause(e);
+            throw fnf;
         }
-        return false;
     }
 
-    private void loadGrid(Scanner input, char[][] grid) {
-        for (int i = 0; i < WAFFLE_SIZE; i++) {
-            String line = input.nextLine();
-            for (int j = 0; j < WAFFLE_SIZE; j++) {
-                grid[i][j] = line.charAt(j);
-            }
+    private static Puzzle storePuzzle(String filename, int puzzleNumber) {
+        try {
+            return SqliteStore.cached(Path.of(filename)).puzzle(puzzleNumber);
+        } catch (SQLException e) {
+            throw new IllegalStateException("failed to read puzzle " + puzzleNumber + " from " + filename, e);
         }
     }
 
-    private boolean inBounds(int r, int c) {
-        return r >= 0 && r < WAFFLE_SIZE && c >= 0 && c < WAFFLE_SIZE;
+    private void load(Board p, Board s) {
+        if (p.layout() != puzzle.layout()) {
+            int size = p.layout().size();
+            puzzle = new Board(p.layout());
+            solution = new Board(p.layout());
+            puzzleView = new char[size][size];
+            solutionView = new char[size][size];
+        }
+        puzzle.copyFrom(p);
+        solution.copyFrom(s);
+        puzzle.toGrid(puzzleView);
+        solution.toGrid(solutionView);
+        hintEngine.reset(puzzle, solution);
     }
 
     public boolean swap(int r1, int c1, int r2, int c2) {
-        if (!inBounds(r1, c1) || !inBounds(r2, c2))
+        if (!swapNoCost(r1, c1, r2, c2))
             return false;
-        char tmp = puzzle[r1][c1];
-        puzzle[r1][c1] = puzzle[r2][c2];
-        puzzle[r2][c2] = tmp;
         swapsRemaining = Math.max(0, swapsRemaining - 1);
+        if (metered)
+            Metrics.SWAPS.increment();
         return true;
     }
 
+    /** Swaps two letter cells without spending a swap; holes and out-of-bounds cells are rejected. */
     public boolean swapNoCost(int r1, int c1, int r2, int c2) {
-        if (!inBounds(r1, c1) || !inBounds(r2, c2))
+        int a = puzzle.layout().cell(r1, c1);
+        int b = puzzle.layout().cell(r2, c2);
+        if (a < 0 || b < 0)
             return false;
-        char tmp = puzzle[r1][c1];
-        puzzle[r1][c1] = puzzle[r2][c2];
-        puzzle[r2][c2] = tmp;
+        puzzle.swap(a, b);
+        char tmp = puzzleView[r1][c1];
+        puzzleView[r1][c1] = puzzleView[r2][c2];
+        puzzleView[r2][c2] = tmp;
+        hintEngine.swapped(a, b);
         return true;
     }
 
@@ -108,62 +232,32 @@ public class WaffleGame {
     }
 
     public boolean isCompleted() {
-        for (int r = 0; r < WAFFLE_SIZE; r++)
-            for (int c = 0; c < WAFFLE_SIZE; c++)
-                if (puzzle[r][c] != solution[r][c])
-                    return false;
-        return true;
+        return puzzle.equals(solution);
     }
 
     public void identifyHints(Hint[][] hints) {
-        for (int r = 0; r < WAFFLE_SIZE; r++) {
-            for (int c = 0; c < WAFFLE_SIZE; c++) {
-                if (solution[r][c] == ' ')
-                    hints[r][c] = Hint.BLANK;
-                else if (puzzle[r][c] == solution[r][c])
-                    hints[r][c] = Hint.CORRECT;
-                else
-                    hints[r][c] = Hint.NOT_IN_WORD;
-            }
+        if (!metered) {
+            hintEngine.fill(hints);
+            return;
         }
-        for (int row = 0; row < WAFFLE_SIZE; row += 2)
-            checkWordForWrongPosition(hints, row, true);
-        for (int col = 0; col < WAFFLE_SIZE; col += 2)
-            checkWordForWrongPosition(hints, col, false);
+        long start = System.nanoTime();
+        hintEngine.fill(hints);
+        Metrics.HINTS.since(start);
     }
 
-    private void checkWordForWrongPosition(Hint[][] hints, int lineIndex, boolean isHorizontal) {
-        ArrayList<Character> unmatched = getUnmatchedSolutionLetters(hints, lineIndex, isHorizontal);
-        markWrongPositionLetters(hints, lineIndex, isHorizontal, unmatched);
+    /** Stops this game's swaps and hint lookups from being recorded in {@link Metrics}. */
+    void unmetered() {
+        metered = false;
     }
 
-    private ArrayList<Character> getUnmatchedSolutionLetters(Hint[][] hints, int lineIndex, boolean isHorizontal) {
-        ArrayList<Character> res = new ArrayList<>();
-        for (int i = 0; i < WAFFLE_SIZE; i++) {
-            int r = isHorizontal ? lineIndex : i;
-            int c = isHorizontal ? i : lineIndex;
-            if (hints[r][c] != Hint.CORRECT)
-                res.add(solution[r][c]);
-        }
-        return res;
-    }
-
-    private void markWrongPositionLetters(Hint[][] hints, int lineIndex, boolean isHorizontal,
-            ArrayList<Character> unmatched) {
-        for (int i = 0; i < WAFFLE_SIZE; i++) {
-            int r = isHorizontal ? lineIndex : i;
-            int c = isHorizontal ? i : lineIndex;
-            if (hints[r][c] != Hint.CORRECT && unmatched.contains(puzzle[r][c])) {
-                hints[r][c] = Hint.WRONG_POSITION;
-                unmatched.remove(Character.valueOf(puzzle[r][c]));
-            }
-        }
+    /** Sets the swaps left and the give-up flag of a game restored from a saved session. */
+    void restore(int swapsRemaining, boolean gaveUp) {
+        this.swapsRemaining = swapsRemaining;
+        this.gaveUp = gaveUp;
     }
 
     public void revealSolution() {
-        for (int r = 0; r < WAFFLE_SIZE; r++) {
-            System.arraycopy(solution[r], 0, puzzle[r], 0, WAFFLE_SIZE);
-        }
+        load(solution, solution);
         gaveUp = true;
     }
 
@@ -171,104 +265,157 @@ public class WaffleGame {
         return gaveUp;
     }
 
+    /** Read-only view of the current letters; holes are ' '. */
     public char[][] getPuzzleGrid() {
-        return puzzle;
+        return puzzleView;
     }
 
     public int getSwapsRemaining() {
         return swapsRemaining;
     }
 
+    /** Code to share the current puzzle, or null if it didn't come from a seed. */
+    public String getPuzzleCode() {
+        return puzzleCode;
+    }
+
+    /** Side length of the grid: 5 for the standard game. */
+    public int getSize() {
+        return puzzle.layout().size();
+    }
+
+    /** Read-only view of the solution letters; holes are ' '. */
     public char[][] getSolutionGrid() {
-        return solution;
+        return solutionView;
     }
 
-    // ----- random board generation -----
-    private void buildRandomSolutionFromDictionary() {
-        final int MAX_TRIES = 8000;
-
-        for (int attempt = 0; attempt < MAX_TRIES; attempt++) {
-            java.util.List<String> rows = Dictionary.randomWords(3);
-            String r0 = rows.get(0);
-            String r1 = rows.get(1);
-            String r2 = rows.get(2);
-
-            java.util.List<String> c0s = Dictionary.get024(r0.charAt(0), r1.charAt(0), r2.charAt(0));
-            java.util.List<String> c2s = Dictionary.get024(r0.charAt(2), r1.charAt(2), r2.charAt(2));
-            java.util.List<String> c4s = Dictionary.get024(r0.charAt(4), r1.charAt(4), r2.charAt(4));
-            if (c0s.isEmpty() || c2s.isEmpty() || c4s.isEmpty())
-                continue;
-
-            String c0 = c0s.get(RNG.nextInt(c0s.size()));
-            String c2 = c2s.get(RNG.nextInt(c2s.size()));
-            String c4 = c4s.get(RNG.nextInt(c4s.size()));
-
-            char[][] sol = initSolutionMask();
-            placeRowWord(sol, 0, r0);
-            placeRowWord(sol, 2, r1);
-            placeRowWord(sol, 4, r2);
-            placeOddRowFromColumns(sol, 1, c0, c2, c4);
-            placeOddRowFromColumns(sol, 3, c0, c2, c4);
-
-            this.solution = sol;
-            this.puzzle = copy(sol);
-            return;
-        }
-        throw new IllegalStateException("Could not generate a board from words.txt.");
+    /** Search nodes the generator spent on the last random board (0 for file puzzles). */
+    long getGenerationNodes() {
+        return generationNodes;
     }
 
-    private static char[][] initSolutionMask() {
-        char[][] m = new char[WAFFLE_SIZE][WAFFLE_SIZE];
-        for (int r = 0; r < WAFFLE_SIZE; r++) {
-            for (int c = 0; c < WAFFLE_SIZE; c++) {
-                m[r][c] = ((r % 2 == 1) || (c % 2 == 1)) ? ' ' : '?';
-            }
-        }
-        return m;
+    /** Fewest swaps that still solve the current board, and one way to do it. */
+    SwapSolver.Result solve() {
+        return SwapSolver.solve(puzzle, solution);
     }
 
-    private static void placeRowWord(char[][] grid, int row, String w) {
-        for (int col = 0; col < WAFFLE_SIZE; col++)
-            grid[row][col] = w.charAt(col);
+    /**
+     * Best next swap found within about {@code budgetNanos}. The advisor and
+     * its transposition table are kept for the life of the game, so asking
+     * again after an undo or redo is usually a table hit.
+     */
+    SwapAdvisor.Suggestion suggestSwap(long budgetNanos) {
+        if (advisor == null)
+            advisor = new SwapAdvisor();
+        return advisor.suggest(puzzle, solution, budgetNanos);
     }
 
-    private static void placeOddRowFromColumns(char[][] grid, int row, String c0, String c2, String c4) {
-        grid[row][0] = c0.charAt(row);
-        grid[row][2] = c2.charAt(row);
-        grid[row][4] = c4.charAt(row);
+    /** True if the current board can still be solved with the swaps left. */
+    public boolean isSolvableWithinSwaps() {
+        return SwapSolver.distance(puzzle, solution) <= swapsRemaining;
     }
 
-    private void scramblePuzzleFromSolution(int swaps) {
-        ArrayList<int[]> cells = new ArrayList<>();
-        for (int r = 0; r < WAFFLE_SIZE; r++) {
-            for (int c = 0; c < WAFFLE_SIZE; c++) {
-                if (solution[r][c] != ' ')
-                    cells.add(new int[] { r, c });
+    /** Copy of the packed current board. */
+    Board getPuzzleBoard() {
+        return puzzle.copy();
+    }
+
+    /** Copy of the packed solution board. */
+    Board getSolutionBoard() {
+        return solution.copy();
+    }
+
+    // ----- random board generation -----
+    private static BoardGenerator.Result buildRandomSolutionFromDictionary(BoardGenerator generator, RandomGenerator rng) {
+        long start = System.nanoTime();
+        BoardGenerator.Result result = generator.generate(rng);
+        Metrics.GENERATION.since(start);
+        Metrics.GENERATION_PLACEMENTS.add(result.nodes());
+        Metrics.GENERATION_BACKTRACKS.add(result.nodes() - generator.layout().words());
+        return result;
+    }
+
+    private static Board scramblePuzzleFromSolution(Board solution, RandomGenerator rng, int swaps) {
+        Board p = solution.copy();
+        int cells = solution.layout().cells();
+        int rolls = 0;
+        do {
+            rolls++;
+            p.copyFrom(solution);
+            int n = 0;
+            while (n < swaps) {
+                int a = rng.nextInt(cells);
+                int b = rng.nextInt(cells);
+                if (a == b)
+                    continue;
+                p.swap(a, b);
+                n++;
             }
+        } while (p.equals(solution) || !makeUnique(p, solution, rng));
+        Metrics.SCRAMBLE_REROLLS.add(rolls - 1);
+        return p;
+    }
+
+    /**
+     * Turns misplaced cells green until the solution is the only grid the
+     * scrambled letters spell. Returns false if that solves the board. The
+     * checker covers the standard layout only; other sizes pass unchecked.
+     */
+    private static boolean makeUnique(Board p, Board solution, RandomGenerator rng) {
+        if (p.layout() != Layout.STANDARD)
+            return true;
+        UniquenessChecker checker = CHECKERS.take();
+        try {
+            return pinUntilUnique(checker, p, solution, rng);
+        } finally {
+            CHECKERS.give(checker);
         }
+    }
 
-        Collections.shuffle(cells, RNG);
-        this.puzzle = copy(this.solution);
-
-        int n = 0;
-        while (n < swaps) {
-            int[] a = cells.get(RNG.nextInt(cells.size()));
-            int[] b = cells.get(RNG.nextInt(cells.size()));
-            if (a[0] == b[0] && a[1] == b[1])
-                continue;
-            char tmp = puzzle[a[0]][a[1]];
-            puzzle[a[0]][a[1]] = puzzle[b[0]][b[1]];
-            puzzle[b[0]][b[1]] = tmp;
-            n++;
+    private static boolean pinUntilUnique(UniquenessChecker checker, Board p, Board solution, RandomGenerator rng) {
+        while (true) {
+            UniquenessChecker.Result r = checker.check(new Puzzle(p, solution), UNIQUE_NODE_BUDGET);
+            if (r.unique())
+                return true;
+            // pin a cell the other grid gets wrong; any misplaced one if the check ran out of budget
+            long wrong = p.diffMask(solution);
+            if (r.alternative() != null)
+                wrong &= r.alternative().diffMask(solution);
+            for (int k = rng.nextInt(Long.bitCount(wrong)); k > 0; k--)
+                wrong &= wrong - 1;
+            int cell = Long.numberOfTrailingZeros(wrong);
+            for (int j = 0; j < Board.CELLS; j++) {
+                if (p.get(j) == solution.get(cell) && p.get(j) != solution.get(j)) {
+                    p.swap(cell, j);
+                    Metrics.SCRAMBLE_PINS.increment();
+                    break;
+                }
+            }
+            if (p.equals(solution))
+                return false;
         }
-        if (isCompleted())
-            scramblePuzzleFromSolution(swaps);
     }
 
-    private static char[][] copy(char[][] src) {
-        char[][] dst = new char[src.length][src[0].length];
-        for (int i = 0; i < src.length; i++)
-            System.arraycopy(src[i], 0, dst[i], 0, src[i].length);
-        return dst;
+    /**
+     * Reusable scratch objects shared by every thread. A caller takes one for
+     * a single call and gives it back; at most one per core is kept idle, and
+     * an empty pool builds a new one rather than waiting.
+     */
+    private static final class Pool<T> {
+        private final Supplier<T> factory;
+        private final BlockingQueue<T> idle = new ArrayBlockingQueue<>(Runtime.getRuntime().availableProcessors());
+
+        Pool(Supplier<T> factory) {
+            this.factory = factory;
+        }
+
+        T take() {
+            T t = idle.poll();
+            return t != null ? t : factory.get();
+        }
+
+        void give(T t) {
+            idle.offer(t);
+        }
     }
 }
\ No newline at end of file
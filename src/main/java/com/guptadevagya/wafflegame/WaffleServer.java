@@ -0,0 +1,338 @@
+package com.guptadevagya.wafflegame;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.HexFormat;
+import java.util.Locale;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Headless JSON front end to {@link WaffleGame} on the JDK's built-in HTTP
+ * server, one virtual thread per request. Nothing here touches AWT or Swing,
+ * so the server runs on a box without a display.
+ *
+ * <pre>
+ * POST /games                                  new game
+ * POST /games?code=0ZK4C9T3MX1QE               the game a {@link PuzzleCode} names
+ * GET  /games/{id}                             current state
+ * POST /games/{id}/swap?r1=&amp;c1=&amp;r2=&amp;c2=   swap two tiles, spending a swap
+ * POST /games/{id}/undo                        take back the last swap, refunding it
+ * GET  /games/{id}/hints                       the hint matrix only
+ * POST /games/{id}/giveup                      reveal the solution
+ * </pre>
+ *
+ * The state is {@code {"id", "code", "size", "swapsRemaining", "completed",
+ * "gaveUp", "grid", "hints"}}: the code that shares the puzzle (null if it
+ * has none), grid rows as strings with ' ' for holes, and hints as rows of
+ * {@link Hint} names. Errors are {@code {"error": ...}}
+ * with a 4xx status.
+ *
+ * Games are kept packed in a {@link SessionStore} and unpacked for each
+ * request; idle ones are swept once a minute. New games come from a
+ * {@link PuzzleBank}, so starting one is usually a queue poll.
+ *
+ * {@link #main} turns on TCP_NODELAY for the JDK server; anything else that
+ * embeds it should launch with {@code -Dsun.net.httpserver.nodelay=true}.
+ */
+public final class WaffleServer implements AutoCloseable {
+    static final long IDLE_TIMEOUT_MILLIS = 30 * 60_000L;
+    static final int DEFAULT_MAX_SESSIONS = 1_000_000;
+
+    private final HttpServer server;
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private final ScheduledExecutorService sweeper = Executors.newSingleThreadScheduledExecutor(
+            Thread.ofPlatform().daemon().name("session-sweeper").factory());
+    private final SessionStore sessions;
+    private final PuzzleBank bank;
+
+    /** Thrown by handlers to answer with {@code status} and a JSON error. */
+    private static final class HttpError extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        final int status;
+
+        HttpError(int status, String message) {
+            super(message, null, false, false);
+            this.status = status;
+        }
+    }
+
+    /** Binds to {@code port} (0 picks a free one) and starts serving. */
+    WaffleServer(int port, PuzzleBank bank, SessionStore sessions) throws IOException {
+        this.bank = bank;
+        this.sessions = sessions;
+        this.server = HttpServer.create(new InetSocketAddress(port), 1024);
+        server.setExecutor(executor);
+        server.createContext("/games", this::handle);
+        server.start();
+        sweeper.scheduleWithFixedDelay(sessions::expire, 1, 1, TimeUnit.MINUTES);
+    }
+
+    int port() {
+        return server.getAddress().getPort();
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        sweeper.shutdownNow();
+        executor.shutdownNow();
+    }
+
+    private void handle(HttpExchange ex) throws IOException {
+        int status = 200;
+        String body;
+        try {
+            body = route(ex);
+        } catch (HttpError e) {
+            status = e.status;
+            body = error(e.getMessage());
+        } catch (RuntimeException e) {
+            status = 500;
+            body = error(String.valueOf(e.getMessage()));
+        }
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        ex.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        ex.getResponseHeaders().set("Cache-Control", "no-store");
+        ex.sendResponseHeaders(status, bytes.length);
+        try (OutputStream os = ex.getResponseBody()) {
+            os.write(bytes);
+        }
+    }
+
+    private String route(HttpExchange ex) {
+        // /games, /games/{id} or /games/{id}/{action}
+        String[] parts = ex.getRequestURI().getPath().split("/");
+        String method = ex.getRequestMethod();
+        if (!parts[1].equals("games"))
+            throw new HttpError(404, "no such endpoint");
+        if (parts.length == 2) {
+            requireMethod(method, "POST");
+            return newGame(ex.getRequestURI().getRawQuery());
+        }
+        if (parts.length > 4)
+            throw new HttpError(404, "no such endpoint");
+
+        String action = parts.length == 4 ? parts[3] : "";
+        String query = ex.getRequestURI().getRawQuery();
+        String body = sessions.update(parseId(parts[2]), s -> {
+            switch (action) {
+                case "" -> requireMethod(method, "GET");
+                case "swap" -> {
+                    requireMethod(method, "POST");
+                    swap(s, query);
+                }
+                case "undo" -> {
+                    requireMethod(method, "POST");
+                    undo(s);
+                }
+                case "hints" -> {
+                    requireMethod(method, "GET");
+                    StringBuilder sb = new StringBuilder(256);
+                    appendHints(sb.append('{'), s.game()).append('}');
+                    return sb.toString();
+                }
+                case "giveup" -> {
+                    requireMethod(method, "POST");
+                    s.clearMoves();
+                    s.game().revealSolution();
+                }
+                default -> throw new HttpError(404, "no such endpoint");
+            }
+            return state(s);
+        });
+        if (body == null)
+            throw new HttpError(404, "no such game");
+        return body;
+    }
+
+    /** Session ids are 16 hex digits; anything else names no game. */
+    private static long parseId(String id) {
+        if (id.length() != 16)
+            return 0;
+        try {
+            return HexFormat.fromHexDigitsToLong(id);
+        } catch (IllegalArgumentException e) {
+            return 0;
+        }
+    }
+
+    private String newGame(String query) {
+        String code = value(query, "code");
+        Puzzle p;
+        if (code == null) {
+            p = bank.take();
+        } else {
+            try {
+                p = WaffleGame.fromSeed(PuzzleCode.parse(code));
+            } catch (IllegalArgumentException e) {
+                throw new HttpError(400, e.getMessage());
+            }
+        }
+        long id = sessions.create(p);
+        String body = sessions.update(id, WaffleServer::state);
+        if (body == null)
+            throw new HttpError(503, "game was evicted before it started");
+        return body;
+    }
+
+    private static void swap(SessionStore.Session s, String query) {
+        WaffleGame game = s.game();
+        if (game.isCompleted() || game.isGaveUp())
+            throw new HttpError(409, "game is over");
+        if (game.getSwapsRemaining() <= 0)
+            throw new HttpError(409, "no swaps left");
+        int r1 = param(query, "r1");
+        int c1 = param(query, "c1");
+        int r2 = param(query, "r2");
+        int c2 = param(query, "c2");
+        if ((r1 == r2 && c1 == c2) || !game.swap(r1, c1, r2, c2))
+            throw new HttpError(400, "r1,c1 and r2,c2 must be two different letter tiles");
+        s.pushMove(Board.cell(r1, c1), Board.cell(r2, c2));
+    }
+
+    private static void undo(SessionStore.Session s) {
+        if (s.game().isGaveUp())
+            throw new HttpError(409, "game is over");
+        int[] cells = new int[2];
+        if (!s.popMove(cells))
+            throw new HttpError(409, "nothing to undo");
+        s.game().swapNoCost(Board.CELL_ROW[cells[0]], Board.CELL_COL[cells[0]],
+                Board.CELL_ROW[cells[1]], Board.CELL_COL[cells[1]]);
+        s.game().adjustSwaps(+1);
+        Metrics.UNDOS.increment();
+    }
+
+    private static void requireMethod(String method, String expected) {
+        if (!method.equals(expected))
+            throw new HttpError(405, "use " + expected);
+    }
+
+    /** The integer value of {@code name} in a raw query string. */
+    private static int param(String query, String name) {
+        String v = value(query, name);
+        if (v != null) {
+            try {
+                return Integer.parseInt(v);
+            } catch (NumberFormatException e) {
+                // reported below
+            }
+        }
+        throw new HttpError(400, "missing or invalid " + name);
+    }
+
+    /** The decoded value of the first {@code name} in a raw query string, or null. */
+    private static String value(String query, String name) {
+        if (query == null)
+            return null;
+        for (String pair : query.split("&")) {
+            int eq = pair.indexOf('=');
+            if (eq == name.length() && pair.startsWith(name)) {
+                try {
+                    return URLDecoder.decode(pair.substring(eq + 1), StandardCharsets.UTF_8);
+                } catch (IllegalArgumentException e) {
+                    throw new HttpError(400, "invalid " + name);
+                }
+            }
+        }
+        return null;
+    }
+
+    private static String state(SessionStore.Session s) {
+        WaffleGame game = s.game();
+        StringBuilder sb = new StringBuilder(512);
+        String code = game.getPuzzleCode();
+        sb.append("{\"id\":\"").append(HexFormat.of().toHexDigits(s.id()))
+                .append(code == null ? "\",\"code\":null" : "\",\"code\":\"" + code + '"')
+                .append(",\"size\":").append(game.getSize())
+                .append(",\"swapsRemaining\":").append(game.getSwapsRemaining())
+                .append(",\"completed\":").append(game.isCompleted())
+                .append(",\"gaveUp\":").append(game.isGaveUp())
+                .append(",\"grid\":[");
+        char[][] grid = game.getPuzzleGrid();
+        for (int r = 0; r < grid.length; r++) {
+            if (r > 0)
+                sb.append(',');
+            sb.append('"').append(grid[r]).append('"');
+        }
+        sb.append("],");
+        return appendHints(sb, game).append('}').toString();
+    }
+
+    private static StringBuilder appendHints(StringBuilder sb, WaffleGame game) {
+        Hint[][] hints = new Hint[game.getSize()][game.getSize()];
+        game.identifyHints(hints);
+        sb.append("\"hints\":[");
+        for (int r = 0; r < hints.length; r++) {
+            sb.append(r > 0 ? ",[" : "[");
+            for (int c = 0; c < hints[r].length; c++) {
+                if (c > 0)
+                    sb.append(',');
+                sb.append('"').append(hints[r][c].name()).append('"');
+            }
+            sb.append(']');
+        }
+        return sb.append(']');
+    }
+
+    private static String error(String message) {
+        StringBuilder sb = new StringBuilder("{\"error\":\"");
+        for (int i = 0; i < message.length(); i++) {
+            char ch = message.charAt(i);
+            if (ch == '"' || ch == '\\')
+                sb.append('\\').append(ch);
+            else if (ch < 0x20)
+                sb.append(String.format(Locale.ROOT, "\\u%04x", (int) ch));
+            else
+                sb.append(ch);
+        }
+        return sb.append("\"}").toString();
+    }
+
+    public static void main(String[] args) throws IOException {
+        System.setProperty("java.awt.headless", "true");
+        // headers and body go out in separate writes; with Nagle on, each
+        // response waits for the client's delayed ACK (~40 ms)
+        if (System.getProperty("sun.net.httpserver.nodelay") == null)
+            System.setProperty("sun.net.httpserver.nodelay", "true");
+        int port = 8080;
+        int bankDepth = 256;
+        int producers = Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+        int maxSessions = DEFAULT_MAX_SESSIONS;
+        Path spill = null;
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            switch (args[i]) {
+                case "--port" -> port = Integer.parseInt(args[i + 1]);
+                case "--bank" -> bankDepth = Integer.parseInt(args[i + 1]);
+                case "--producers" -> producers = Integer.parseInt(args[i + 1]);
+                case "--max-sessions" -> maxSessions = Integer.parseInt(args[i + 1]);
+                case "--spill" -> spill = Path.of(args[i + 1]);
+                default -> throw new IllegalArgumentException("unknown option " + args[i]);
+            }
+        }
+        Metrics.publish();
+        PuzzleBank bank = new PuzzleBank(bankDepth, producers);
+        SessionStore sessions = new SessionStore(maxSessions, IDLE_TIMEOUT_MILLIS, spill);
+        WaffleServer server = new WaffleServer(port, bank, sessions);
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            server.close();
+            bank.close();
+            try {
+                sessions.close();
+            } catch (IOException e) {
+                System.err.println("could not spill sessions: " + e.getMessage());
+            }
+        }, "server-shutdown"));
+        System.out.println("serving on http://localhost:" + server.port() + "/games");
+    }
+}
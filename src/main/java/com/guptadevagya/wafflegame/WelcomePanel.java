@@ -121,7 +121,7 @@ final class WelcomePanel extends JPanel {
                 FlatLightLaf.setup();
             FlatLaf.updateUI();
 
-            WaffleGame game = WaffleGame.randomFromDatabase();
+            WaffleGame game = new WaffleGame(PuzzleBank.shared().take());
             MainPanel main = new MainPanel(game);
             window.setContentPane(main);
             window.revalidate();
@@ -0,0 +1,156 @@
+package com.guptadevagya.wafflegame;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Objects;
+import java.util.RandomAccess;
+import java.util.stream.Stream;
+
+/**
+ * Words of one length for waffles of any size: sorted 5-bit-per-letter long
+ * codes for membership, plus the {@link PatternIndex} the generator searches.
+ *
+ * {@link Dictionary} keeps its specialised 5-letter structures; this is the
+ * general form used for 7x7 boards and other word lengths up to 12.
+ */
+final class WordList {
+    private static final int BITS = 5;
+    private static final int MAX_LENGTH = 12;
+
+    private final int length;
+    /** Every word's code, sorted and distinct, so code order is alphabetical. */
+    private final long[] codes;
+    private final List<String> words;
+    private final PatternIndex patterns;
+
+    private WordList(int length, long[] codes) {
+        this.length = length;
+        this.codes = codes;
+        this.words = new CodeList();
+        this.patterns = new PatternIndex(words, length);
+    }
+
+    /** The {@code length}-letter A–Z words of {@code words}, uppercased; others are ignored. */
+    static WordList of(Collection<String> words, int length) {
+        return of(words.stream(), length);
+    }
+
+    /** Reads one word per line, like {@link #of}. */
+    static WordList load(Path file, int length) throws IOException {
+        try (BufferedReader in = Files.newBufferedReader(file, StandardCharsets.ISO_8859_1)) {
+            return read(in, length);
+        }
+    }
+
+    static WordList read(BufferedReader in, int length) {
+        return of(in.lines(), length);
+    }
+
+    private static WordList of(Stream<String> lines, int length) {
+        if (length < 1 || length > MAX_LENGTH)
+            throw new IllegalArgumentException("word length " + length + " not in 1.." + MAX_LENGTH);
+        long[] codes = lines
+                .map(String::trim)
+                .map(String::toUpperCase)
+                .filter(w -> fits(w, length))
+                .mapToLong(WordList::encode)
+                .sorted()
+                .distinct()
+                .toArray();
+        if (codes.length == 0)
+            throw new IllegalStateException("no valid " + length + "-letter words");
+        return new WordList(length, codes);
+    }
+
+    int length() {
+        return length;
+    }
+
+    int size() {
+        return codes.length;
+    }
+
+    /** All words in alphabetical order; decoded on access. */
+    List<String> words() {
+        return words;
+    }
+
+    PatternIndex patterns() {
+        return patterns;
+    }
+
+    /** Whether {@code word} is in the list (case-insensitive). */
+    boolean isWord(CharSequence word) {
+        if (word.length() != length)
+            return false;
+        long code = 0;
+        for (int i = 0; i < length; i++) {
+            int l = (word.charAt(i) | 0x20) - 'a';
+            if (l < 0 || l >= 26)
+                return false;
+            code = (code << BITS) | l;
+        }
+        return Arrays.binarySearch(codes, code) >= 0;
+    }
+
+    /** Whether word {@code w} of {@code board} is in the list; false while it has empty cells. */
+    boolean isWord(Board board, int w) {
+        int[] cells = board.layout().wordCells(w);
+        if (cells.length != length)
+            return false;
+        long code = 0;
+        for (int cell : cells) {
+            int l = board.get(cell) - 1;
+            if (l < 0)
+                return false;
+            code = (code << BITS) | l;
+        }
+        return Arrays.binarySearch(codes, code) >= 0;
+    }
+
+    private static boolean fits(String s, int length) {
+        if (s.length() != length)
+            return false;
+        for (int i = 0; i < length; i++) {
+            char ch = s.charAt(i);
+            if (ch < 'A' || ch > 'Z')
+                return false;
+        }
+        return true;
+    }
+
+    private static long encode(String word) {
+        long code = 0;
+        for (int i = 0; i < word.length(); i++)
+            code = (code << BITS) | (word.charAt(i) - 'A');
+        return code;
+    }
+
+    private String decode(long code) {
+        char[] out = new char[length];
+        for (int i = length - 1; i >= 0; i--, code >>>= BITS)
+            out[i] = (char) ('A' + (code & ((1 << BITS) - 1)));
+        return new String(out);
+    }
+
+    /** Read-only String view of {@link #codes}. */
+    private final class CodeList extends AbstractList<String> implements RandomAccess {
+        @Override
+        public String get(int index) {
+            Objects.checkIndex(index, codes.length);
+            return decode(codes[index]);
+        }
+
+        @Override
+        public int size() {
+            return codes.length;
+        }
+    }
+}
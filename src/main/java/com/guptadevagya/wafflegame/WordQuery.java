@@ -0,0 +1,98 @@
+package com.guptadevagya.wafflegame;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.random.RandomGenerator;
+
+/**
+ * A positional word query such as "?A?E?" with no Z.
+ *
+ * Fixed letters and allowed-letter sets narrow each position; the result is
+ * read straight from the {@link PatternIndex} bitsets on every call, so a
+ * query can be refined and re-run without building lists.
+ */
+final class WordQuery implements Iterable<String> {
+    private final PatternIndex index;
+    private final int[] allowed;
+
+    /** '?' or '.' leaves a position open; a letter fixes it. */
+    WordQuery(PatternIndex index, String pattern) {
+        if (pattern.length() != index.length())
+            throw new IllegalArgumentException("pattern must have " + index.length() + " letters: " + pattern);
+        this.index = index;
+        this.allowed = new int[index.length()];
+        for (int pos = 0; pos < allowed.length; pos++) {
+            char ch = Character.toUpperCase(pattern.charAt(pos));
+            if (ch == '?' || ch == '.')
+                allowed[pos] = PatternIndex.ANY;
+            else if (ch >= 'A' && ch <= 'Z')
+                allowed[pos] = 1 << (ch - 'A');
+            else
+                throw new IllegalArgumentException("bad pattern character '" + ch + "' in " + pattern);
+        }
+    }
+
+    /** Restricts {@code pos} to the given letters. */
+    WordQuery allow(int pos, String letters) {
+        allowed[pos] &= mask(letters);
+        return this;
+    }
+
+    /** Forbids the given letters at {@code pos}. */
+    WordQuery exclude(int pos, String letters) {
+        allowed[pos] &= ~mask(letters);
+        return this;
+    }
+
+    /** Forbids the given letters everywhere. */
+    WordQuery exclude(String letters) {
+        for (int pos = 0; pos < allowed.length; pos++)
+            exclude(pos, letters);
+        return this;
+    }
+
+    int count() {
+        return index.count(allowed);
+    }
+
+    /** A uniformly random match, or null if nothing matches. */
+    String random(RandomGenerator rng) {
+        int n = count();
+        return n == 0 ? null : index.word(index.select(allowed, rng.nextInt(n)));
+    }
+
+    /** Matches in dictionary order, evaluated one block at a time as the iterator advances. */
+    @Override
+    public Iterator<String> iterator() {
+        return new Iterator<>() {
+            int block = -1;
+            long pending;
+
+            @Override
+            public boolean hasNext() {
+                while (pending == 0 && block + 1 < index.blocks())
+                    pending = index.block(allowed, ++block);
+                return pending != 0;
+            }
+
+            @Override
+            public String next() {
+                if (!hasNext())
+                    throw new NoSuchElementException();
+                int id = (block << 6) | Long.numberOfTrailingZeros(pending);
+                pending &= pending - 1;
+                return index.word(id);
+            }
+        };
+    }
+
+    private static int mask(String letters) {
+        int m = 0;
+        for (int i = 0; i < letters.length(); i++) {
+            char ch = Character.toUpperCase(letters.charAt(i));
+            if (ch >= 'A' && ch <= 'Z')
+                m |= 1 << (ch - 'A');
+        }
+        return m;
+    }
+}
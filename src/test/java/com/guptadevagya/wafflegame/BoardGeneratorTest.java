@@ -0,0 +1,104 @@
+package com.guptadevagya.wafflegame;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// tests for the backtracking board generator.
+class BoardGeneratorTest {
+
+        @Test
+        @DisplayName("Generated boards should consist of six distinct dictionary words")
+        void testBoardsUseDistinctDictionaryWords() {
+                BoardGenerator generator = new BoardGenerator();
+                Set<String> dictionary = new HashSet<>(Dictionary.words());
+                SplittableRandom rng = new SplittableRandom(7);
+
+                for (int i = 0; i < 50; i++) {
+                        BoardGenerator.Result result = generator.generate(rng);
+                        Set<String> seen = new HashSet<>();
+                        for (int w = 0; w < Board.WORDS; w++) {
+                                String word = result.board().word(w);
+                                assertTrue(dictionary.contains(word), word + " is not in the dictionary");
+                                assertTrue(seen.add(word), word + " appears twice");
+                        }
+                        assertTrue(result.nodes() >= Board.WORDS, "every slot needs at least one node");
+                }
+        }
+
+        @Test
+        @DisplayName("The same seed should produce the same board")
+        void testSeedIsReproducible() {
+                Board a = new BoardGenerator().generate(new SplittableRandom(99)).board();
+                Board b = new BoardGenerator().generate(new SplittableRandom(99)).board();
+                assertEquals(a, b);
+        }
+
+        @Test
+        @DisplayName("A tiny word list with exactly one waffle should still produce it")
+        void testFindsOnlyBoardInSmallList() {
+                // ghost/after/epoch cross grape/outdo/torch; the rest are distractors
+                List<String> words = List.of("GHOST", "AFTER", "EPOCH", "GRAPE", "OUTDO", "TORCH",
+                                "ALBUM", "GRAIN", "ELDER", "QUACK", "ZEBRA", "PIANO");
+                BoardGenerator.Result result = new BoardGenerator(words).generate(new SplittableRandom(1));
+
+                Board expected = Board.fromWords("GHOST", "AFTER", "EPOCH", "GRAPE", "OUTDO", "TORCH");
+                Board transposed = Board.fromWords("GRAPE", "OUTDO", "TORCH", "GHOST", "AFTER", "EPOCH");
+                assertTrue(result.board().equals(expected) || result.board().equals(transposed),
+                                "unexpected board " + result.board());
+        }
+
+        @Test
+        @DisplayName("A word list with no waffle should fail instead of looping")
+        void testImpossibleListThrows() {
+                BoardGenerator generator = new BoardGenerator(List.of("QUACK", "ZEBRA", "PIANO", "GHOST"));
+                assertThrows(IllegalStateException.class, () -> generator.generate(new SplittableRandom(1)));
+        }
+
+        @Test
+        @DisplayName("Seven-letter words should produce playable 7x7 waffles")
+        void testSevenBySeven() {
+                // plant one random 7x7 grid among random distractors
+                SplittableRandom rng = new SplittableRandom(7);
+                Board planted = new Board(Layout.of(7));
+                for (int i = 0; i < planted.layout().cells(); i++)
+                        planted.set(i, 1 + rng.nextInt(26));
+                Set<String> words = new HashSet<>();
+                for (int w = 0; w < 8; w++)
+                        words.add(planted.word(w));
+                while (words.size() < 500) {
+                        StringBuilder sb = new StringBuilder();
+                        for (int i = 0; i < 7; i++)
+                                sb.append((char) ('A' + rng.nextInt(26)));
+                        words.add(sb.toString());
+                }
+                WordList list = WordList.of(words, 7);
+                BoardGenerator generator = new BoardGenerator(list.patterns());
+                assertSame(Layout.of(7), generator.layout());
+
+                Board board = generator.generate(rng).board();
+                Set<String> used = new HashSet<>();
+                for (int w = 0; w < 8; w++) {
+                        assertTrue(list.isWord(board, w), board.word(w));
+                        used.add(board.word(w));
+                }
+                assertEquals(8, used.size());
+
+                // and the game plays it with the same rules
+                Puzzle p = WaffleGame.generate(generator, rng);
+                WaffleGame game = new WaffleGame(p);
+                assertEquals(7, game.getSize());
+                assertEquals(39, game.getSwapsRemaining());
+                assertFalse(game.isCompleted());
+                Hint[][] hints = new Hint[7][7];
+                game.identifyHints(hints);
+                assertEquals(Hint.BLANK, hints[1][1]);
+                assertNotNull(hints[6][6]);
+        }
+}
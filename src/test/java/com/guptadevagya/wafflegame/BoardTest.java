@@ -0,0 +1,117 @@
+package com.guptadevagya.wafflegame;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// tests for the packed board representation.
+class BoardTest {
+
+        private static final char[][] GRID = {
+                        { 'G', 'H', 'O', 'S', 'T' },
+                        { 'R', ' ', 'U', ' ', 'O' },
+                        { 'A', 'F', 'T', 'E', 'R' },
+                        { 'P', ' ', 'D', ' ', 'C' },
+                        { 'E', 'P', 'O', 'C', 'H' }
+        };
+
+        @Test
+        @DisplayName("A grid should survive packing and unpacking unchanged")
+        void testGridRoundTrip() {
+                Board board = Board.fromGrid(GRID);
+                char[][] out = new char[Board.SIZE][Board.SIZE];
+                board.toGrid(out);
+
+                for (int i = 0; i < Board.SIZE; i++) {
+                        assertArrayEquals(GRID[i], out[i], "Grid mismatch in row " + i);
+                }
+                assertEquals("GHOSTRUOAFTERPDCEPOCH", board.toString());
+        }
+
+        @Test
+        @DisplayName("Words should be read along rows 0,2,4 and columns 0,2,4")
+        void testWords() {
+                Board board = Board.fromGrid(GRID);
+                String[] expected = { "GHOST", "AFTER", "EPOCH", "GRAPE", "OUTDO", "TORCH" };
+                for (int w = 0; w < Board.WORDS; w++) {
+                        assertEquals(expected[w], board.word(w));
+                }
+                assertEquals(board, Board.fromWords("GHOST", "AFTER", "EPOCH", "GRAPE", "OUTDO", "TORCH"));
+        }
+
+        @Test
+        @DisplayName("Swapping should change equality, hash and the diff mask consistently")
+        void testSwapEqualsAndDiff() {
+                Board a = Board.fromGrid(GRID);
+                Board b = a.copy();
+                assertEquals(a, b);
+                assertEquals(a.hashCode(), b.hashCode());
+                assertEquals(0, a.diffMask(b));
+
+                // swap the first and last cells, which live in different longs
+                b.swap(0, Board.CELLS - 1);
+                assertNotEquals(a, b);
+                assertEquals((1 << 0) | (1 << (Board.CELLS - 1)), a.diffMask(b));
+                assertEquals('H', b.letter(0));
+                assertEquals('G', b.letter(Board.CELLS - 1));
+
+                // swapping two equal letters is a no-op
+                Board c = a.copy();
+                c.swap(Board.cell(0, 2), Board.cell(4, 2));
+                assertEquals(a, c);
+        }
+
+        @Test
+        @DisplayName("Transposing should swap rows and columns, and canonical form should ignore orientation")
+        void testTransposeAndCanonical() {
+                Board board = Board.fromGrid(GRID);
+                Board transposed = board.transpose();
+
+                assertEquals(Board.fromWords("GRAPE", "OUTDO", "TORCH", "GHOST", "AFTER", "EPOCH"), transposed);
+                assertEquals(board, transposed.transpose());
+                assertEquals(board.canonical(), transposed.canonical());
+                assertEquals(board, Board.of(board.lo(), board.hi()));
+        }
+
+        @Test
+        @DisplayName("7x7 boards should round trip words and transpose like 5x5 ones")
+        void testSevenBySeven() {
+                char[][] grid = new char[7][7];
+                for (int r = 0; r < 7; r++) {
+                        for (int c = 0; c < 7; c++)
+                                grid[r][c] = r % 2 == 1 && c % 2 == 1 ? ' ' : (char) ('A' + (r * 7 + c) % 26);
+                }
+                Board board = Board.fromGrid(grid);
+                assertSame(Layout.of(7), board.layout());
+                assertEquals(40, board.layout().cells());
+                assertEquals(8, board.layout().words());
+                char[][] back = new char[7][7];
+                board.toGrid(back);
+                assertArrayEquals(grid, back);
+
+                String[] spelled = new String[8];
+                for (int w = 0; w < 8; w++)
+                        spelled[w] = board.word(w);
+                assertEquals("ABCDEFG", spelled[0]);
+                assertEquals(board, Board.fromWords(spelled));
+
+                // the last cell lives past the first two longs
+                Board b = board.copy();
+                b.swap(0, 39);
+                assertEquals((1L << 0) | (1L << 39), board.diffMask(b));
+                assertEquals(board.letter(39), b.letter(0));
+                assertNotEquals(board, b);
+                assertNotEquals(board.hashCode(), b.hashCode());
+
+                Board transposed = board.transpose();
+                assertEquals(board.word(4), transposed.word(0));
+                assertEquals(board, transposed.transpose());
+                assertEquals(board.canonical(), transposed.canonical());
+
+                // boards of different sizes never compare equal
+                assertNotEquals(new Board(Layout.of(3)), new Board());
+                assertThrows(IllegalArgumentException.class, () -> Layout.of(4));
+                assertThrows(IllegalArgumentException.class, () -> Board.fromWords("GHOST", "AFTER", "EPOCH"));
+        }
+}
@@ -0,0 +1,46 @@
+package com.guptadevagya.wafflegame;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// tests for the parallel bulk generator.
+class BulkGeneratorTest {
+
+        @TempDir
+        Path dir;
+
+        @Test
+        @DisplayName("Text output should be loadable puzzle by puzzle, with distinct solutions")
+        void testTextOutput() throws IOException {
+                Path out = dir.resolve("boards.txt");
+                BulkGenerator.Stats stats = BulkGenerator.run(200, 4, 1234, out, BulkGenerator.Format.TEXT);
+                assertEquals(200, stats.boards());
+
+                // every puzzle is a number line plus two 5-line grids
+                assertEquals(200 * 11, Files.readAllLines(out).size());
+
+                Set<Board> solutions = new HashSet<>();
+                for (int n = 1; n <= 200; n++) {
+                        WaffleGame game = new WaffleGame(out.toString(), n);
+                        assertFalse(game.isCompleted(), "puzzle " + n + " starts solved");
+                        assertTrue(solutions.add(game.getSolutionBoard().canonical()), "duplicate solution " + n);
+                }
+        }
+
+        @Test
+        @DisplayName("Binary output should hold one 32-byte record per puzzle")
+        void testBinaryOutput() throws IOException {
+                Path out = dir.resolve("boards.bin");
+                BulkGenerator.run(50, 2, 99, out, BulkGenerator.Format.BINARY);
+                assertEquals(50 * 32, Files.size(out));
+        }
+}
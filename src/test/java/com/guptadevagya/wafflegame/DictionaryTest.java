@@ -0,0 +1,105 @@
+package com.guptadevagya.wafflegame;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// tests for the packed dictionary storage.
+class DictionaryTest {
+
+        @Test
+        @DisplayName("Word codes should round trip and sort in alphabetical order")
+        void testEncodeDecode() {
+                assertEquals("AAAAA", Dictionary.decode(Dictionary.encode("AAAAA")));
+                assertEquals("ZZZZZ", Dictionary.decode(Dictionary.encode("ZZZZZ")));
+                assertEquals(0, Dictionary.encode("AAAAA"));
+                assertTrue(Dictionary.encode("GHOST") < Dictionary.encode("GHOUL"));
+
+                List<String> words = Dictionary.words();
+                for (int i = 1; i < words.size(); i++) {
+                        assertTrue(words.get(i - 1).compareTo(words.get(i)) < 0, "not sorted at " + i);
+                }
+        }
+
+        @Test
+        @DisplayName("get024 should return exactly the words matching letters 0, 2 and 4")
+        void testGet024MatchesScan() {
+                for (String key : List.of("GOT", "AER", "SET", "QQQ", "ZZZ")) {
+                        char a = key.charAt(0), b = key.charAt(1), c = key.charAt(2);
+                        List<String> expected = new ArrayList<>();
+                        for (String w : Dictionary.words()) {
+                                if (w.charAt(0) == a && w.charAt(2) == b && w.charAt(4) == c)
+                                        expected.add(w);
+                        }
+                        assertEquals(expected, Dictionary.get024(a, b, c), "key " + key);
+                        assertEquals(expected, Dictionary.get024(Character.toLowerCase(a), b, Character.toLowerCase(c)));
+                }
+                assertTrue(Dictionary.get024('1', 'A', 'A').isEmpty());
+        }
+
+        @Test
+        @DisplayName("isWord should agree with the word list over the whole word space")
+        void testIsWord() {
+                Set<String> words = new HashSet<>(Dictionary.words());
+                for (String w : words) {
+                        assertTrue(Dictionary.isWord(w), w);
+                        assertTrue(Dictionary.isWord(w.toLowerCase()), w);
+                }
+                // every 5-letter A-Z string, hits and misses alike
+                char[] probe = new char[5];
+                int hits = 0;
+                for (int n = 0; n < 26 * 26 * 26 * 26 * 26; n++) {
+                        for (int i = 4, rest = n; i >= 0; i--, rest /= 26)
+                                probe[i] = (char) ('A' + rest % 26);
+                        String s = new String(probe);
+                        boolean expected = words.contains(s);
+                        if (Dictionary.isWord(s) != expected)
+                                fail(s + " should " + (expected ? "" : "not ") + "be a word");
+                        if (expected)
+                                hits++;
+                }
+                assertEquals(words.size(), hits);
+                assertFalse(Dictionary.isWord("GHOS"));
+                assertFalse(Dictionary.isWord("GHOSTS"));
+                assertFalse(Dictionary.isWord("GH0ST"));
+                assertFalse(Dictionary.isWord("GHOS["));
+        }
+
+        @Test
+        @DisplayName("isWord on a board should check one row or column and reject empty cells")
+        void testIsWordOnBoard() {
+                Board board = Board.fromWords("GHOST", "AFTER", "EPOCH", "GRAPE", "OUTDO", "TORCH");
+                for (int w = 0; w < Board.WORDS; w++)
+                        assertTrue(Dictionary.isWord(board, w), board.word(w));
+
+                board.swap(0, 1);
+                assertFalse(Dictionary.isWord(board, 0));
+                assertTrue(Dictionary.isWord(board, 1));
+                board.set(Board.cell(2, 2), 0);
+                assertFalse(Dictionary.isWord(board, 1));
+        }
+
+        @Test
+        @DisplayName("A word list of any length should keep only valid words and answer lookups")
+        void testWordList() {
+                WordList list = WordList.of(List.of("ballads", "GHOST", "Ballads", "CABBAGE", "ab-cdef", "ZYMURGY "), 7);
+                assertEquals(7, list.length());
+                assertEquals(List.of("BALLADS", "CABBAGE", "ZYMURGY"), list.words());
+                assertTrue(list.isWord("cabbage"));
+                assertFalse(list.isWord("CABBAGF"));
+                assertFalse(list.isWord("GHOST"));
+                assertEquals(3, list.patterns().size());
+
+                // the 5-letter list matches the dictionary
+                WordList five = Dictionary.ofLength(5);
+                assertEquals(Dictionary.words(), five.words());
+                assertTrue(five.isWord("ghost"));
+                assertThrows(IllegalStateException.class, () -> WordList.of(List.of("GHOST"), 7));
+        }
+}
@@ -0,0 +1,78 @@
+package com.guptadevagya.wafflegame;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// tests for puzzle difficulty rating.
+class DifficultyTest {
+
+        private static final Board SOLUTION = Board.fromWords("GHOST", "AFTER", "EPOCH", "GRAPE", "OUTDO", "TORCH");
+
+        @Test
+        @DisplayName("A single corner swap should rate as one swap with no ambiguity or yellows")
+        void testSingleSwap() {
+                Board start = SOLUTION.copy();
+                start.swap(0, Board.CELLS - 1);
+                Difficulty d = Difficulty.rate(new Puzzle(start, SOLUTION));
+
+                assertEquals(1, d.swaps());
+                assertEquals(0, d.ambiguous());
+                assertEquals(0, d.yellows());
+                assertTrue(d.rarity() > 0);
+                assertEquals(Difficulty.Tier.EASY, d.tier());
+        }
+
+        @Test
+        @DisplayName("Misplaced repeated letters should count as ambiguous")
+        void testAmbiguousLetters() {
+                // swap the O of GHOST with its S and the O of EPOCH with its C
+                Board start = SOLUTION.copy();
+                start.swap(Board.cell(0, 2), Board.cell(0, 3));
+                start.swap(Board.cell(4, 2), Board.cell(4, 3));
+                Difficulty d = Difficulty.rate(new Puzzle(start, SOLUTION));
+
+                assertEquals(2, d.swaps());
+                // both misplaced Os are needed twice, S and C once each
+                assertEquals(2, d.ambiguous());
+        }
+
+        @Test
+        @DisplayName("Parallel rating should match rating one puzzle at a time")
+        void testRateAllMatchesSequential() {
+                SplittableRandom rng = new SplittableRandom(21);
+                List<Puzzle> puzzles = new ArrayList<>();
+                for (int i = 0; i < 300; i++)
+                        puzzles.add(WaffleGame.generate(rng));
+
+                Difficulty[] parallel = Difficulty.rateAll(puzzles, 4);
+                for (int i = 0; i < puzzles.size(); i++) {
+                        Difficulty d = Difficulty.rate(puzzles.get(i));
+                        assertEquals(d, parallel[i]);
+                        assertTrue(d.swaps() <= WaffleGame.MAX_SWAPS);
+                        assertTrue(d.score() >= d.swaps());
+                }
+        }
+
+        @Test
+        @DisplayName("Generated puzzles should split roughly 30 / 45 / 25 across the tiers")
+        void testTierSplit() {
+                SplittableRandom rng = new SplittableRandom(14);
+                List<Puzzle> puzzles = new ArrayList<>();
+                for (int i = 0; i < 400; i++)
+                        puzzles.add(WaffleGame.generate(rng));
+
+                int[] tiers = new int[Difficulty.Tier.values().length];
+                for (Difficulty d : Difficulty.rateAll(puzzles, 2))
+                        tiers[d.tier().ordinal()]++;
+                // wide enough for sampling noise, narrow enough to catch a generator change
+                assertEquals(0.30, tiers[0] / 400.0, 0.08, "EASY");
+                assertEquals(0.45, tiers[1] / 400.0, 0.08, "MEDIUM");
+                assertEquals(0.25, tiers[2] / 400.0, 0.08, "HARD");
+        }
+}
@@ -0,0 +1,69 @@
+package com.guptadevagya.wafflegame;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.awt.EventQueue;
+import java.io.StringWriter;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// tests for the event-thread stall monitor.
+class EdtWatchdogTest {
+
+        private static void busy(long millis) {
+                long end = System.nanoTime() + millis * 1_000_000;
+                while (System.nanoTime() < end)
+                        Thread.onSpinWait();
+        }
+
+        @Test
+        @DisplayName("A slow event should be logged with its duration and a stack from inside it")
+        void testLogsStall() throws Exception {
+                EdtWatchdog.install();
+                int before = EdtWatchdog.stalls().size();
+                long ms = EdtWatchdog.STALL_NANOS / 1_000_000 * 3;
+                EventQueue.invokeAndWait(() -> busy(ms));
+                // fast events are timed but not logged
+                for (int i = 0; i < 20; i++)
+                        EventQueue.invokeAndWait(() -> busy(1));
+
+                List<EdtWatchdog.Stall> stalls = EdtWatchdog.stalls();
+                assertEquals(before + 1, stalls.size());
+                EdtWatchdog.Stall s = stalls.getLast();
+                assertTrue(s.nanos() >= ms * 1_000_000, "took " + s.nanos());
+                assertTrue(EdtWatchdog.worstStall() >= s.nanos());
+                assertTrue(Arrays.stream(s.stack()).anyMatch(e -> e.getMethodName().equals("busy")),
+                                Arrays.toString(s.stack()));
+
+                StringWriter out = new StringWriter();
+                EdtWatchdog.export(out);
+                assertTrue(out.toString().contains("EdtWatchdogTest.busy"), out.toString());
+        }
+
+        @Test
+        @DisplayName("Time an event spends in a nested event loop should not count against it")
+        void testNestedLoopIsNotAStall() throws Exception {
+                EdtWatchdog.install();
+                int before = EdtWatchdog.stalls().size();
+                long ms = EdtWatchdog.STALL_NANOS / 1_000_000 * 2;
+                EventQueue.invokeAndWait(() -> {
+                        // what a modal dialog does: pump events until something ends the loop
+                        var loop = java.awt.Toolkit.getDefaultToolkit().getSystemEventQueue().createSecondaryLoop();
+                        Thread.ofPlatform().start(() -> {
+                                try {
+                                        Thread.sleep(ms);
+                                } catch (InterruptedException e) {
+                                        Thread.currentThread().interrupt();
+                                }
+                                loop.exit();
+                        });
+                        loop.enter();
+                });
+                // the event is timed after invokeAndWait returns, so let the next one through
+                EventQueue.invokeAndWait(() -> { });
+                assertEquals(before, EdtWatchdog.stalls().size());
+        }
+}
@@ -0,0 +1,84 @@
+package com.guptadevagya.wafflegame;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.management.ReflectionException;
+import java.lang.management.ManagementFactory;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// tests for the metrics registry and its MBean.
+class MetricsTest {
+
+        @Test
+        @DisplayName("Histogram percentiles should bound the recorded values within a factor of two")
+        void testHistogram() {
+                Metrics.Histogram h = new Metrics.Histogram("test");
+                assertEquals(0, h.percentileNanos(0.99));
+                for (int i = 1; i <= 1000; i++)
+                        h.record(i * 1000L);
+                assertEquals(1000, h.count());
+                assertEquals(500_500, h.meanNanos(), 1e-9);
+                assertEquals(1_000_000, h.maxNanos());
+                long p50 = h.percentileNanos(0.5);
+                assertTrue(p50 >= 500_000 && p50 <= 1_000_000, "p50 " + p50);
+                assertEquals(1_000_000, h.percentileNanos(0.99));
+                h.record(-5);
+                assertEquals(1001, h.count());
+        }
+
+        @Test
+        @DisplayName("Playing and generating should move the engine metrics")
+        void testEngineMetrics() {
+                Map<String, Number> before = Metrics.snapshot();
+                WaffleGame game = new WaffleGame(WaffleGame.generate(new SplittableRandom(11)));
+                game.swap(0, 0, 0, 1);
+                game.swap(0, 0, 0, 1);
+                game.swapNoCost(0, 0, 0, 1);
+                game.identifyHints(new Hint[5][5]);
+                Map<String, Number> after = Metrics.snapshot();
+
+                assertEquals(2, after.get("swaps").longValue() - before.get("swaps").longValue());
+                assertEquals(1, after.get("hints.count").longValue() - before.get("hints.count").longValue());
+                assertEquals(1, after.get("generation.count").longValue() - before.get("generation.count").longValue());
+                assertTrue(after.get("generation.placements").longValue() - before.get("generation.placements").longValue() >= 6);
+                assertTrue(after.get("dictionary.load.count").longValue() >= 1);
+        }
+
+        @Test
+        @DisplayName("Every metric should be readable over JMX")
+        void testPublished() throws Exception {
+                Metrics.publish();
+                Metrics.publish();
+                MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+                ObjectName name = new ObjectName(Metrics.OBJECT_NAME);
+                Map<String, Number> now = Metrics.snapshot();
+                assertEquals(now.size(), server.getMBeanInfo(name).getAttributes().length);
+                long swaps = (Long) server.getAttribute(name, "swaps");
+                Metrics.SWAPS.increment();
+                assertEquals(swaps + 1, server.getAttribute(name, "swaps"));
+                assertInstanceOf(Double.class, server.getAttribute(name, "hints.p99Micros"));
+                assertEquals(3, server.getAttributes(name, new String[] { "undos", "redos", "nope", "sound.dropped" }).size());
+                ReflectionException e = assertThrows(ReflectionException.class,
+                                () -> server.invoke(name, "reset", new Object[0], new String[0]));
+                assertInstanceOf(NoSuchMethodException.class, e.getCause());
+        }
+
+        @Test
+        @DisplayName("Bot games should not feed the player metrics")
+        void testSimulatorIsUnmetered() {
+                List<Puzzle> pool = Simulator.pool(4, 1, 3);
+                Map<String, Number> before = Metrics.snapshot();
+                Simulator.Stats s = Simulator.run(Simulator.Bot.GREEDY, 20, WaffleGame.MAX_SWAPS, pool, 1, 3);
+                Map<String, Number> after = Metrics.snapshot();
+                assertTrue(s.swaps() > 0);
+                assertEquals(before.get("swaps"), after.get("swaps"));
+                assertEquals(before.get("hints.count"), after.get("hints.count"));
+        }
+}
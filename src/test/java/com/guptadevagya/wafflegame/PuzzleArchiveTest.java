@@ -0,0 +1,130 @@
+package com.guptadevagya.wafflegame;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.Writer;
+import java.net.URISyntaxException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.StandardCopyOption;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// tests for the memory-mapped puzzle archive.
+class PuzzleArchiveTest {
+
+        @TempDir
+        Path dir;
+
+        private static Path waffles() throws URISyntaxException {
+                return Path.of(PuzzleArchiveTest.class.getClassLoader().getResource("waffles.txt").toURI());
+        }
+
+        /** waffles.txt with a 7x7 puzzle 20 appended. */
+        static Path withSevenBySeven(Path dir) throws IOException, URISyntaxException {
+                Board seven = new Board(Layout.of(7));
+                for (int i = 0; i < seven.layout().cells(); i++)
+                        seven.setLetter(i, (char) ('A' + i % 26));
+                Path text = dir.resolve("mixed.txt");
+                Files.copy(waffles(), text);
+                try (Writer w = Files.newBufferedWriter(text, StandardOpenOption.APPEND)) {
+                        PuzzleFile.write(w, 20, new Puzzle(seven, seven), new char[7][7]);
+                }
+                return text;
+        }
+
+        @Test
+        @DisplayName("Every well-formed puzzle in waffles.txt should read back identically from the archive")
+        void testConvertMatchesTextFile() throws IOException, URISyntaxException {
+                Path archive = dir.resolve("waffles" + PuzzleArchive.EXTENSION);
+                // puzzle 9 in waffles.txt is missing a solution row, so it is skipped
+                assertEquals(1, PuzzleArchive.convert(waffles(), archive));
+
+                try (PuzzleArchive a = PuzzleArchive.open(archive)) {
+                        assertEquals(10, a.count());
+                        assertFalse(a.contains(9));
+                        for (int n = 1; n <= 11; n++) {
+                                if (n == 9)
+                                        continue;
+                                WaffleGame text = new WaffleGame(waffles().toString(), n);
+                                Puzzle p = a.get(n);
+                                assertEquals(text.getPuzzleBoard(), p.start(), "start of puzzle " + n);
+                                assertEquals(text.getSolutionBoard(), p.solution(), "solution of puzzle " + n);
+                        }
+                        assertFalse(a.contains(0));
+                        assertThrows(IllegalStateException.class, () -> a.get(12));
+                }
+        }
+
+        @Test
+        @DisplayName("WaffleGame should load archives through resetToFile")
+        void testWaffleGameLoadsArchive() throws IOException, URISyntaxException {
+                Path archive = dir.resolve("game" + PuzzleArchive.EXTENSION);
+                PuzzleArchive.convert(waffles(), archive);
+
+                WaffleGame game = new WaffleGame(archive.toString(), 1);
+                assertEquals("GHOST", game.getSolutionBoard().word(0));
+                game.resetToFile(archive.toString(), 11);
+                assertEquals("ALBUM", game.getSolutionBoard().word(0));
+                assertEquals(WaffleGame.MAX_SWAPS, game.getSwapsRemaining());
+
+                assertThrows(FileNotFoundException.class,
+                                () -> new WaffleGame(dir.resolve("missing" + PuzzleArchive.EXTENSION).toString(), 1));
+        }
+
+        @Test
+        @DisplayName("A cached archive should be reopened once its file is rewritten")
+        void testCachedSeesRewrites() throws IOException, URISyntaxException {
+                Path archive = dir.resolve("cached" + PuzzleArchive.EXTENSION);
+                PuzzleArchive.convert(waffles(), archive);
+                PuzzleArchive held = PuzzleArchive.cached(archive);
+                assertEquals(10, held.count());
+                assertSame(held, PuzzleArchive.cached(archive));
+
+                // just the header comment and puzzle 1
+                Path one = dir.resolve("one.txt");
+                Files.write(one, Files.readAllLines(waffles()).subList(0, 12));
+                PuzzleArchive.convert(one, archive);
+                PuzzleArchive a = PuzzleArchive.cached(archive);
+                assertEquals(1, a.count());
+                assertEquals("GHOST", a.get(1).solution().word(0));
+                // the old mapping still reads the file it was opened on
+                assertEquals("ALBUM", held.get(11).solution().word(0));
+                try (var files = Files.list(dir)) {
+                        assertTrue(files.noneMatch(f -> f.toString().endsWith(".tmp")));
+                }
+
+                // rewritten behind our back rather than through convert
+                Path full = dir.resolve("full" + PuzzleArchive.EXTENSION);
+                PuzzleArchive.convert(waffles(), full);
+                Files.copy(full, archive, StandardCopyOption.REPLACE_EXISTING);
+                assertEquals(10, PuzzleArchive.cached(archive).count());
+        }
+
+        @Test
+        @DisplayName("Archives should skip puzzles that aren't 5x5, which still load in the game")
+        void testSkipsOtherSizes() throws IOException, URISyntaxException {
+                Path text = withSevenBySeven(dir);
+                Path archive = dir.resolve("mixed" + PuzzleArchive.EXTENSION);
+                // puzzle 9 is malformed and puzzle 20 is 7x7
+                assertEquals(2, PuzzleArchive.convert(text, archive));
+                try (PuzzleArchive a = PuzzleArchive.open(archive)) {
+                        assertEquals(10, a.count());
+                        assertFalse(a.contains(20));
+                }
+
+                WaffleGame game = new WaffleGame(text.toString(), 20);
+                assertEquals(7, game.getSize());
+                assertEquals(WaffleGame.maxSwaps(Layout.of(7)), game.getSwapsRemaining());
+                game.resetToFile(text.toString(), 11);
+                assertEquals(5, game.getSize());
+                assertEquals(WaffleGame.MAX_SWAPS, game.getSwapsRemaining());
+                assertThrows(IllegalStateException.class, () -> game.resetToFile(text.toString(), 9));
+                assertThrows(IllegalStateException.class, () -> game.resetToFile(text.toString(), 21));
+        }
+}
@@ -0,0 +1,84 @@
+package com.guptadevagya.wafflegame;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// tests for the background puzzle bank.
+class PuzzleBankTest {
+
+        @Test
+        @DisplayName("The bank should fill up to its depth and serve hits from the queue")
+        void testFillsAndServesHits() throws InterruptedException {
+                try (PuzzleBank bank = new PuzzleBank(4, 2)) {
+                        long deadline = System.currentTimeMillis() + 10_000;
+                        while (bank.size() < 4 && System.currentTimeMillis() < deadline)
+                                Thread.sleep(5);
+                        assertEquals(4, bank.size(), "bank never filled up");
+                        assertTrue(bank.lastGenerationNanos() > 0);
+
+                        Puzzle p = bank.take();
+                        assertNotEquals(p.start(), p.solution(), "puzzle should start scrambled");
+                        assertEquals(1, bank.hits());
+                        assertEquals(0, bank.misses());
+                }
+        }
+
+        @Test
+        @DisplayName("An empty bank should fall back to generating synchronously")
+        void testFallsBackWhenEmpty() {
+                PuzzleBank bank = new PuzzleBank(1, 1);
+                bank.close();
+                // drain whatever the producer managed to add before closing
+                while (bank.size() > 0)
+                        bank.take();
+                long hits = bank.hits();
+
+                Puzzle p = bank.take();
+                assertNotNull(p);
+                assertEquals(hits, bank.hits());
+                assertEquals(1, bank.misses());
+                assertTrue(new WaffleGame(p).getSwapsRemaining() > 0);
+        }
+
+        @Test
+        @DisplayName("A failed attempt should be counted and the producer should keep filling the bank")
+        void testProducerSurvivesFailure() throws InterruptedException {
+                Puzzle ok = WaffleGame.generate(new SplittableRandom(5));
+                AtomicInteger calls = new AtomicInteger();
+                long published = Metrics.BANK_FAILURES.get();
+                try (PuzzleBank bank = new PuzzleBank(2, 1, rng -> {
+                        if (calls.incrementAndGet() == 1)
+                                throw new IllegalArgumentException("boom");
+                        return ok;
+                })) {
+                        long deadline = System.currentTimeMillis() + 10_000;
+                        while (bank.size() < 2 && System.currentTimeMillis() < deadline)
+                                Thread.sleep(5);
+                        assertEquals(2, bank.size(), "producer gave up after one failure");
+                        assertEquals(1, bank.failures());
+                        assertEquals(published + 1, Metrics.BANK_FAILURES.get());
+                }
+        }
+
+        @Test
+        @DisplayName("A word list with no board should stop the producer and fail take() loudly")
+        void testNoBoardIsTerminal() throws InterruptedException {
+                AtomicInteger calls = new AtomicInteger();
+                try (PuzzleBank bank = new PuzzleBank(2, 1, rng -> {
+                        calls.incrementAndGet();
+                        throw new BoardGenerator.NoBoardException("no board");
+                })) {
+                        long deadline = System.currentTimeMillis() + 10_000;
+                        while (bank.failures() == 0 && System.currentTimeMillis() < deadline)
+                                Thread.sleep(5);
+                        Thread.sleep(250);
+                        assertEquals(1, calls.get());
+                        assertThrows(BoardGenerator.NoBoardException.class, bank::take);
+                }
+        }
+}
@@ -0,0 +1,75 @@
+package com.guptadevagya.wafflegame;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// tests for seeded generation and shareable puzzle codes.
+class PuzzleCodeTest {
+
+        @Test
+        @DisplayName("Codes should round trip every seed and parse leniently")
+        void testCodeRoundTrip() {
+                SplittableRandom rng = new SplittableRandom(19);
+                long[] edge = { 0, 1, -1, 42, Long.MIN_VALUE, Long.MAX_VALUE };
+                for (long seed : edge)
+                        assertEquals(seed, PuzzleCode.parse(PuzzleCode.of(seed)));
+                for (int i = 0; i < 1000; i++) {
+                        long seed = rng.nextLong();
+                        String code = PuzzleCode.of(seed);
+                        assertEquals(PuzzleCode.LENGTH, code.length());
+                        assertEquals(seed, PuzzleCode.parse(code));
+                }
+
+                assertEquals("000000000001A", PuzzleCode.of(42));
+                assertEquals(42, PuzzleCode.parse("0000-0000-0001a"));
+                assertEquals(PuzzleCode.parse("0000000000011"), PuzzleCode.parse("OOOOOOOOOOOIL"));
+
+                assertThrows(IllegalArgumentException.class, () -> PuzzleCode.parse("000000000001"));
+                assertThrows(IllegalArgumentException.class, () -> PuzzleCode.parse("0000000000001A"));
+                assertThrows(IllegalArgumentException.class, () -> PuzzleCode.parse("G000000000000"));
+                assertThrows(IllegalArgumentException.class, () -> PuzzleCode.parse("00000000000U1"));
+        }
+
+        @Test
+        @DisplayName("A seed should give the same puzzle on any thread, and this one on every JVM")
+        void testSeedIsReproducible() throws Exception {
+                Puzzle p = WaffleGame.fromSeed(42);
+                // pinned so shared codes keep working; only a dictionary change may move it
+                assertEquals(Board.fromWords("JEELS", "UMBRA", "TIDED", "JOUST", "EBBED", "SCAND"), p.solution());
+                assertEquals("LEOUSBJCBDERTMSNEIEAD", p.start().toString());
+
+                WaffleGame.generate(new SplittableRandom(7));
+                assertEquals(p, WaffleGame.fromSeed(42));
+                assertEquals(p, CompletableFuture.supplyAsync(() -> WaffleGame.fromSeed(42)).get());
+                assertNotEquals(p, WaffleGame.fromSeed(43));
+        }
+
+        @Test
+        @DisplayName("A game started from a code should report that code until another puzzle is loaded")
+        void testGameCodes() {
+                WaffleGame game = new WaffleGame(WaffleGame.generate(new SplittableRandom(1)));
+                assertNull(game.getPuzzleCode());
+                assertEquals(PuzzleCode.of(1), new WaffleGame(WaffleGame.fromSeed(1)).getPuzzleCode());
+
+                game.resetToCode("000000000001a");
+                assertEquals("000000000001A", game.getPuzzleCode());
+                assertEquals(WaffleGame.fromSeed(42).start(), game.getPuzzleBoard());
+                assertEquals(WaffleGame.fromSeed(42).solution(), game.getSolutionBoard());
+
+                game.resetToRandom();
+                WaffleGame copy = new WaffleGame(WaffleGame.fromSeed(1));
+                copy.resetToCode(game.getPuzzleCode());
+                assertEquals(game.getPuzzleBoard(), copy.getPuzzleBoard());
+
+                game.reset(WaffleGame.fromSeed(3));
+                assertEquals(PuzzleCode.of(3), game.getPuzzleCode());
+                game.reset(WaffleGame.generate(new SplittableRandom(3)));
+                assertNull(game.getPuzzleCode());
+                assertThrows(IllegalArgumentException.class, () -> game.resetToCode("nope"));
+        }
+}
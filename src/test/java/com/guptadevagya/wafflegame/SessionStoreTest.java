@@ -0,0 +1,173 @@
+package com.guptadevagya.wafflegame;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.SplittableRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// tests for the packed, evicting session store.
+class SessionStoreTest {
+
+        @TempDir
+        Path dir;
+
+        private static final long TTL = 60_000;
+
+        /** Makes one swap of cells 0 and {@code 1 + n % 20} and returns the resulting board. */
+        private static Board play(SessionStore store, long id, int n) {
+                return store.update(id, s -> {
+                        int b = 1 + n % 20;
+                        s.game().swap(Board.CELL_ROW[0], Board.CELL_COL[0], Board.CELL_ROW[b], Board.CELL_COL[b]);
+                        s.pushMove(0, b);
+                        return s.game().getPuzzleBoard();
+                });
+        }
+
+        @Test
+        @DisplayName("Every swap should come back from the move log as the same two cells")
+        void testMoveLogRoundTrip() throws IOException {
+                SessionStore store = new SessionStore(10, TTL, null);
+                long id = store.create(WaffleGame.generate(new SplittableRandom(1)));
+                store.update(id, s -> {
+                        for (int a = 0; a < Board.CELLS; a++) {
+                                for (int b = 0; b < Board.CELLS; b++) {
+                                        if (a != b)
+                                                s.pushMove(a, b);
+                                }
+                        }
+                        return null;
+                });
+                store.update(id, s -> {
+                        assertEquals(Board.CELLS * (Board.CELLS - 1), s.moves());
+                        int[] cells = new int[2];
+                        for (int a = Board.CELLS - 1; a >= 0; a--) {
+                                for (int b = Board.CELLS - 1; b >= 0; b--) {
+                                        if (a == b)
+                                                continue;
+                                        assertTrue(s.popMove(cells));
+                                        assertEquals(Math.min(a, b), cells[0]);
+                                        assertEquals(Math.max(a, b), cells[1]);
+                                }
+                        }
+                        assertFalse(s.popMove(cells));
+                        return null;
+                });
+        }
+
+        @Test
+        @DisplayName("A game should keep its board, swaps and give-up flag between requests")
+        void testStatePersists() throws IOException {
+                SessionStore store = new SessionStore(10, TTL, null);
+                Puzzle p = WaffleGame.generate(new SplittableRandom(2));
+                long id = store.create(p);
+                Board after = play(store, id, 3);
+                store.update(id, s -> {
+                        assertEquals(after, s.game().getPuzzleBoard());
+                        assertEquals(p.solution(), s.game().getSolutionBoard());
+                        assertEquals(19, s.game().getSwapsRemaining());
+                        assertEquals(1, s.moves());
+                        s.game().revealSolution();
+                        return null;
+                });
+                Boolean over = store.update(id, s -> s.game().isGaveUp() && s.game().isCompleted());
+                assertTrue(over);
+
+                // a throwing action leaves the stored game as it was
+                assertThrows(IllegalStateException.class, () -> store.update(id, s -> {
+                        s.clearMoves();
+                        throw new IllegalStateException();
+                }));
+                assertEquals(1, store.update(id, SessionStore.Session::moves));
+                assertNull(store.update(id + 1, s -> "missing"));
+        }
+
+        @Test
+        @DisplayName("Without a spill file the least recently used games should be dropped")
+        void testEvictsWithoutSpill() throws IOException {
+                SessionStore store = new SessionStore(SessionStore.STRIPES, TTL, null);
+                SplittableRandom rng = new SplittableRandom(3);
+                Puzzle p = WaffleGame.generate(rng);
+                long[] ids = new long[1000];
+                for (int i = 0; i < ids.length; i++)
+                        ids[i] = store.create(p);
+                assertTrue(store.size() <= SessionStore.STRIPES);
+                assertEquals(0, store.spilled());
+                assertNotNull(store.update(ids[ids.length - 1], s -> s));
+                int lost = 0;
+                for (long id : ids) {
+                        if (store.update(id, s -> s) == null)
+                                lost++;
+                }
+                assertTrue(lost >= ids.length - SessionStore.STRIPES, "lost " + lost);
+        }
+
+        @Test
+        @DisplayName("Evicted games should spill to disk, come back on demand, codes and all, and survive a restart")
+        void testSpillAndRestore() throws IOException {
+                Path file = dir.resolve("sessions.bin");
+                SplittableRandom rng = new SplittableRandom(4);
+                long[] ids = new long[500];
+                Board[] boards = new Board[ids.length];
+                try (SessionStore store = new SessionStore(SessionStore.STRIPES, TTL, file)) {
+                        for (int i = 0; i < ids.length; i++) {
+                                // every other game is seeded, so it has a code to keep
+                                ids[i] = store.create(i % 2 == 0 ? WaffleGame.fromSeed(i) : WaffleGame.generate(rng));
+                                boards[i] = play(store, ids[i], i);
+                        }
+                        assertTrue(store.size() <= SessionStore.STRIPES);
+                        assertEquals(ids.length, store.size() + store.spilled());
+                        for (int i = 0; i < ids.length; i++) {
+                                assertEquals(boards[i], store.update(ids[i], s -> s.game().getPuzzleBoard()), "game " + i);
+                                boards[i] = play(store, ids[i], i + 1);
+                        }
+                }
+
+                try (SessionStore store = new SessionStore(SessionStore.STRIPES, TTL, file)) {
+                        assertEquals(0, store.size());
+                        assertEquals(ids.length, store.spilled());
+                        for (int i = 0; i < ids.length; i++) {
+                                final int n = i;
+                                store.update(ids[i], s -> {
+                                        assertEquals(boards[n], s.game().getPuzzleBoard());
+                                        assertEquals(18, s.game().getSwapsRemaining());
+                                        assertEquals(2, s.moves());
+                                        assertEquals(n % 2 == 0 ? PuzzleCode.of(n) : null, s.game().getPuzzleCode());
+                                        return null;
+                                });
+                        }
+                }
+        }
+
+        @Test
+        @DisplayName("Games idle past the TTL should expire, resident or spilled")
+        void testExpiry() throws IOException {
+                AtomicLong now = new AtomicLong(System.currentTimeMillis());
+                try (SessionStore store = new SessionStore(SessionStore.STRIPES, TTL, dir.resolve("ttl.bin"), now::get)) {
+                        Puzzle p = WaffleGame.generate(new SplittableRandom(5));
+                        long first = store.create(p);
+                        for (int i = 0; i < 300; i++)
+                                store.create(p);
+                        assertTrue(store.spilled() > 0);
+
+                        now.addAndGet(TTL / 2);
+                        long fresh = store.create(p);
+                        assertNotNull(store.update(first, s -> s));
+
+                        now.addAndGet(TTL / 2 + 2000);
+                        store.expire();
+                        assertEquals(2, store.size() + store.spilled());
+                        assertNotNull(store.update(fresh, s -> s));
+
+                        now.addAndGet(TTL + 2000);
+                        assertNull(store.update(first, s -> s));
+                        store.expire();
+                        assertEquals(0, store.size() + store.spilled());
+                }
+        }
+}
@@ -0,0 +1,54 @@
+package com.guptadevagya.wafflegame;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// tests for the headless bot simulator.
+class SimulatorTest {
+
+        private static final List<Puzzle> POOL = Simulator.pool(20, 2, 7);
+
+        @Test
+        @DisplayName("The puzzle pool should depend only on the seed")
+        void testPoolIsReproducible() {
+                assertEquals(POOL, Simulator.pool(20, 1, 7));
+                assertNotEquals(POOL, Simulator.pool(20, 1, 8));
+        }
+
+        @Test
+        @DisplayName("The solver bot should win every game in exactly the optimal number of swaps")
+        void testSolverIsOptimal() {
+                Simulator.Stats s = Simulator.run(Simulator.Bot.SOLVER, 200, WaffleGame.MAX_SWAPS, POOL, 3, 1);
+                assertEquals(200, s.games());
+                assertEquals(200, s.wins());
+                long optimal = 0;
+                for (int k = 0; k < s.used().length; k++) {
+                        long puzzles = k < s.distance().length ? s.distance()[k] : 0;
+                        // each pool puzzle is played 10 times
+                        assertEquals(10 * puzzles, s.used()[k], "wins in " + k);
+                        optimal += 10 * puzzles * k;
+                }
+                assertEquals(optimal, s.swaps());
+        }
+
+        @Test
+        @DisplayName("Other bots should never beat the solver, and a zero budget should win nothing")
+        void testBudgets() {
+                Simulator.Stats solver = Simulator.run(Simulator.Bot.SOLVER, 100, WaffleGame.MAX_SWAPS, POOL, 1, 2);
+                Simulator.Stats greedy = Simulator.run(Simulator.Bot.GREEDY, 100, WaffleGame.MAX_SWAPS, POOL, 2, 2);
+                assertTrue(greedy.wins() > 0);
+                assertTrue(greedy.meanWinSwaps() >= solver.meanWinSwaps());
+
+                Simulator.Stats random = Simulator.run(Simulator.Bot.RANDOM, 100, 500, POOL, 2, 2);
+                assertEquals(100, random.wins());
+                assertTrue(random.meanWinSwaps() > solver.meanWinSwaps());
+
+                Simulator.Stats none = Simulator.run(Simulator.Bot.RANDOM, 100, 0, POOL, 2, 2);
+                assertEquals(0, none.wins());
+                assertEquals(0, none.swaps());
+        }
+}
@@ -0,0 +1,173 @@
+package com.guptadevagya.wafflegame;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// tests for the SQLite word and puzzle store.
+class SqliteStoreTest {
+
+        @TempDir
+        Path dir;
+
+        private static Path waffles() throws URISyntaxException {
+                return Path.of(SqliteStoreTest.class.getClassLoader().getResource("waffles.txt").toURI());
+        }
+
+        @Test
+        @DisplayName("get024 from the store should match the in-memory dictionary")
+        void testGet024MatchesDictionary() throws SQLException {
+                try (SqliteStore store = SqliteStore.open(dir.resolve("words.db"))) {
+                        assertEquals(Dictionary.words().size(), store.importWords(Dictionary.words()));
+                        // re-importing adds nothing and junk is ignored
+                        assertEquals(0, store.importWords(List.of("ghost", "toolong", "AB1DE")));
+                        assertEquals(Dictionary.words().size(), store.wordCount());
+
+                        for (String w : Dictionary.words().subList(0, 300)) {
+                                char a = w.charAt(0), b = w.charAt(2), c = w.charAt(4);
+                                assertEquals(Dictionary.get024(a, b, c).stream().sorted().toList(),
+                                                store.get024(a, b, c), "key " + a + b + c);
+                        }
+                        assertEquals(Dictionary.get024('g', 'o', 't'), store.get024('g', 'o', 't'));
+                        assertTrue(store.isWord("ghost"));
+                        assertFalse(store.isWord("GHOSX"));
+                }
+        }
+
+        @Test
+        @DisplayName("Puzzles imported into the store should load like the text file")
+        void testPuzzlesMatchTextFile() throws SQLException, IOException, URISyntaxException {
+                Path db = dir.resolve("puzzles.db");
+                try (SqliteStore store = SqliteStore.open(db)) {
+                        // puzzle 9 in waffles.txt is missing a solution row
+                        assertEquals(1, store.importPuzzles(waffles()));
+                        assertEquals(10, store.puzzleCount());
+                        assertThrows(IllegalStateException.class, () -> store.puzzle(9));
+                }
+
+                WaffleGame game = new WaffleGame(db.toString(), 1);
+                for (int n = 1; n <= 11; n++) {
+                        if (n == 9)
+                                continue;
+                        WaffleGame text = new WaffleGame(waffles().toString(), n);
+                        game.resetToFile(db.toString(), n);
+                        assertEquals(text.getPuzzleBoard(), game.getPuzzleBoard(), "start of puzzle " + n);
+                        assertEquals(text.getSolutionBoard(), game.getSolutionBoard(), "solution of puzzle " + n);
+                }
+                assertThrows(FileNotFoundException.class, () -> new WaffleGame(dir.resolve("missing.db").toString(), 1));
+        }
+
+        @Test
+        @DisplayName("Importing should skip puzzles that aren't 5x5")
+        void testImportSkipsOtherSizes() throws SQLException, IOException, URISyntaxException {
+                try (SqliteStore store = SqliteStore.open(dir.resolve("mixed.db"))) {
+                        assertEquals(2, store.importPuzzles(PuzzleArchiveTest.withSevenBySeven(dir)));
+                        assertEquals(10, store.puzzleCount());
+                        assertThrows(IllegalStateException.class, () -> store.puzzle(20));
+                }
+        }
+
+        @Test
+        @DisplayName("Rated puzzles should be served by tier with their stored rating")
+        void testRatesAndServesByTier() throws SQLException, IOException, URISyntaxException {
+                try (SqliteStore store = SqliteStore.open(dir.resolve("rated.db"))) {
+                        store.importPuzzles(waffles());
+                        assertNull(store.difficulty(1));
+                        assertEquals(10, store.rate(2));
+                        assertEquals(0, store.rate(2), "already rated puzzles are skipped");
+
+                        Puzzle first = store.puzzle(1);
+                        Difficulty d = store.difficulty(1);
+                        assertEquals(Difficulty.rate(first), d);
+
+                        SplittableRandom rng = new SplittableRandom(1);
+                        for (int i = 0; i < 20; i++) {
+                                Puzzle p = store.randomPuzzle(d.tier(), rng);
+                                assertEquals(d.tier(), Difficulty.rate(p).tier());
+                        }
+                }
+        }
+
+        @Test
+        @DisplayName("A database with only a word column should gain indexed letter columns on open")
+        void testMigratesWordOnlySchema() throws SQLException {
+                Path db = dir.resolve("legacy.db");
+                try (Connection c = DriverManager.getConnection("jdbc:sqlite:" + db);
+                                Statement st = c.createStatement()) {
+                        st.execute("CREATE TABLE words(word TEXT PRIMARY KEY)");
+                        st.execute("INSERT INTO words VALUES ('GHOST'), ('GROUT'), ('AFTER')");
+                }
+                try (SqliteStore store = SqliteStore.open(db)) {
+                        assertEquals(List.of("GHOST", "GROUT"), store.get024('G', 'O', 'T'));
+                        assertEquals(List.of("AFTER"), store.get024('A', 'T', 'R'));
+                }
+        }
+
+        @Test
+        @DisplayName("The bundled words.db should hold the dictionary and the bundled puzzles")
+        void testBundledStore() throws SQLException, URISyntaxException {
+                Path bundled = Path.of(SqliteStoreTest.class.getClassLoader().getResource("words.db").toURI());
+                try (SqliteStore store = SqliteStore.openReadOnly(bundled)) {
+                        assertEquals(Dictionary.words().size(), store.wordCount());
+                        assertEquals(Dictionary.words().stream().sorted().toList(),
+                                        store.words().stream().sorted().toList());
+                        assertEquals("GHOST", store.puzzle(1).solution().word(0));
+                }
+        }
+
+        @Test
+        @DisplayName("Reading a store should never write to its file")
+        void testReadsLeaveFileAlone() throws SQLException, IOException, URISyntaxException {
+                Path db = dir.resolve("library.db");
+                try (SqliteStore store = SqliteStore.open(db)) {
+                        store.importPuzzles(waffles());
+                }
+                assertFalse(Files.exists(dir.resolve("library.db-wal")), "imports checkpoint on close");
+                byte[] before = Files.readAllBytes(db);
+                FileTime modified = Files.getLastModifiedTime(db);
+
+                WaffleGame game = new WaffleGame(db.toString(), 11);
+                assertEquals("ALBUM", game.getSolutionBoard().word(0));
+                try (SqliteStore store = SqliteStore.openReadOnly(db)) {
+                        assertEquals(10, store.puzzleCount());
+                        assertThrows(SQLException.class, () -> store.importWords(List.of("GHOST")));
+                        assertThrows(SQLException.class, () -> store.importPuzzles(waffles()));
+                }
+                assertArrayEquals(before, Files.readAllBytes(db));
+                assertEquals(modified, Files.getLastModifiedTime(db));
+                assertFalse(Files.exists(dir.resolve("library.db-wal")));
+                assertFalse(Files.exists(dir.resolve("library.db-shm")));
+        }
+
+        @Test
+        @DisplayName("Stores should be recognised by their header, not their extension")
+        void testIsStoreReadsHeader() throws SQLException, IOException, URISyntaxException {
+                Path db = dir.resolve("puzzles.sqlite");
+                try (SqliteStore store = SqliteStore.open(db)) {
+                        store.importPuzzles(waffles());
+                }
+                assertTrue(SqliteStore.isStore(db.toString()));
+                assertEquals("GHOST", new WaffleGame(db.toString(), 1).getSolutionBoard().word(0));
+
+                Path text = dir.resolve("waffles.db");
+                Files.copy(waffles(), text);
+                assertFalse(SqliteStore.isStore(text.toString()));
+                assertEquals("GHOST", new WaffleGame(text.toString(), 1).getSolutionBoard().word(0));
+                assertFalse(SqliteStore.isStore(dir.resolve("missing.db").toString()));
+        }
+}
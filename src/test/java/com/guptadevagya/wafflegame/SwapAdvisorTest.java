@@ -0,0 +1,68 @@
+package com.guptadevagya.wafflegame;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// tests for the time-budgeted swap advisor.
+class SwapAdvisorTest {
+
+        private static final long BUDGET = 50_000_000;
+
+        @Test
+        @DisplayName("Following the advisor should solve the board in the optimal number of swaps")
+        void testFollowingSuggestionsIsOptimal() {
+                SplittableRandom rng = new SplittableRandom(5);
+                for (int round = 0; round < 50; round++) {
+                        Puzzle p = WaffleGame.generate(rng);
+                        int distance = SwapSolver.distance(p.start(), p.solution());
+                        SwapAdvisor advisor = new SwapAdvisor();
+
+                        Board b = p.start().copy();
+                        for (int left = distance; left > 0; left--) {
+                                SwapAdvisor.Suggestion s = advisor.suggest(b, p.solution(), BUDGET);
+                                assertTrue(s.optimal());
+                                assertEquals(left, s.distance());
+                                b.swap(s.first(), s.second());
+                        }
+                        assertEquals(p.solution(), b);
+                        assertEquals(-1, advisor.suggest(b, p.solution(), BUDGET).first());
+                        // only the first position needed a search; the rest of the line was cached
+                        assertEquals(1, advisor.misses());
+                }
+        }
+
+        @Test
+        @DisplayName("Undo and redo through WaffleGame should be answered from the table")
+        void testUndoRedoHitsTable() {
+                Puzzle p = WaffleGame.generate(new SplittableRandom(9));
+                WaffleGame game = new WaffleGame(p);
+
+                SwapAdvisor.Suggestion first = game.suggestSwap(BUDGET);
+                int r1 = Board.CELL_ROW[first.first()], c1 = Board.CELL_COL[first.first()];
+                int r2 = Board.CELL_ROW[first.second()], c2 = Board.CELL_COL[first.second()];
+                assertTrue(game.swap(r1, c1, r2, c2));
+                assertEquals(first.distance() - 1, game.suggestSwap(BUDGET).distance());
+
+                // undo, then ask again: same answer as before
+                game.swapNoCost(r1, c1, r2, c2);
+                assertEquals(first, game.suggestSwap(BUDGET));
+        }
+
+        @Test
+        @DisplayName("With no time at all the advisor should still return a swap that helps")
+        void testZeroBudgetStillAnswers() {
+                SplittableRandom rng = new SplittableRandom(11);
+                for (int round = 0; round < 50; round++) {
+                        Puzzle p = WaffleGame.generate(rng);
+                        SwapAdvisor.Suggestion s = new SwapAdvisor().suggest(p.start(), p.solution(), 0);
+                        Board b = p.start().copy();
+                        b.swap(s.first(), s.second());
+                        assertTrue(Long.bitCount(b.diffMask(p.solution())) < Long.bitCount(p.start().diffMask(p.solution())));
+                        assertTrue(s.distance() >= SwapSolver.distance(p.start(), p.solution()));
+                }
+        }
+}
@@ -0,0 +1,136 @@
+package com.guptadevagya.wafflegame;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// tests for the exact minimum-swap solver.
+class SwapSolverTest {
+
+        private static void assertSolves(Board start, Board solution, SwapSolver.Result r) {
+                Board b = start.copy();
+                for (int i = 0; i < r.swaps(); i++) {
+                        b.swap(r.first(i), r.second(i));
+                }
+                assertEquals(solution, b, "swap sequence does not reach the solution");
+        }
+
+        // breadth-first search over swaps of the given cells only
+        private static int bruteForce(Board start, Board solution, int[] cells) {
+                Map<Board, Integer> dist = new HashMap<>();
+                ArrayDeque<Board> queue = new ArrayDeque<>();
+                dist.put(start, 0);
+                queue.add(start);
+                while (!queue.isEmpty()) {
+                        Board b = queue.poll();
+                        int d = dist.get(b);
+                        if (b.equals(solution))
+                                return d;
+                        for (int i = 0; i < cells.length; i++) {
+                                for (int j = i + 1; j < cells.length; j++) {
+                                        Board next = b.copy();
+                                        next.swap(cells[i], cells[j]);
+                                        if (dist.putIfAbsent(next, d + 1) == null)
+                                                queue.add(next);
+                                }
+                        }
+                }
+                throw new AssertionError("unreachable");
+        }
+
+        @Test
+        @DisplayName("A solved board should need no swaps, and a single swap should need one")
+        void testTrivialCases() {
+                Board solution = Board.fromWords("GHOST", "AFTER", "EPOCH", "GRAPE", "OUTDO", "TORCH");
+                assertEquals(0, SwapSolver.distance(solution, solution));
+
+                Board start = solution.copy();
+                start.swap(0, 20);
+                SwapSolver.Result r = SwapSolver.solve(start, solution);
+                assertEquals(1, r.swaps());
+                assertSolves(start, solution, r);
+        }
+
+        @Test
+        @DisplayName("Distinct letters should cost the cycle length minus one")
+        void testSingleCycleOfDistinctLetters() {
+                Board solution = new Board();
+                for (int i = 0; i < Board.CELLS; i++)
+                        solution.set(i, i + 1);
+                // rotate every cell by one: a single 21-cycle
+                Board start = new Board();
+                for (int i = 0; i < Board.CELLS; i++)
+                        start.set(i, solution.get((i + 1) % Board.CELLS));
+
+                SwapSolver.Result r = SwapSolver.solve(start, solution);
+                assertEquals(Board.CELLS - 1, r.swaps());
+                assertSolves(start, solution, r);
+        }
+
+        @Test
+        @DisplayName("With heavily repeated letters the solver should match a brute-force search")
+        void testMatchesBruteForce() {
+                SplittableRandom rng = new SplittableRandom(12);
+                for (int round = 0; round < 200; round++) {
+                        // three letters only, so the choice of cycles matters
+                        Board solution = new Board();
+                        for (int i = 0; i < Board.CELLS; i++)
+                                solution.set(i, 1 + rng.nextInt(3));
+
+                        int[] cells = new int[7];
+                        for (int i = 0; i < cells.length; i++)
+                                cells[i] = 3 * i + rng.nextInt(3);
+                        Board start = solution.copy();
+                        for (int i = cells.length - 1; i > 0; i--)
+                                start.swap(cells[i], cells[rng.nextInt(i + 1)]);
+
+                        SwapSolver.Result r = SwapSolver.solve(start, solution);
+                        assertEquals(bruteForce(start, solution, cells), r.swaps(), "round " + round);
+                        assertSolves(start, solution, r);
+                }
+        }
+
+        @Test
+        @DisplayName("Generated puzzles should always be solvable within the swap budget")
+        void testGeneratedPuzzlesFitBudget() {
+                SplittableRandom rng = new SplittableRandom(3);
+                for (int i = 0; i < 200; i++) {
+                        Puzzle p = WaffleGame.generate(rng);
+                        SwapSolver.Result r = SwapSolver.solve(p.start(), p.solution());
+                        assertTrue(r.swaps() > 0 && r.swaps() <= WaffleGame.MAX_SWAPS, "distance " + r.swaps());
+                        assertSolves(p.start(), p.solution(), r);
+                }
+        }
+
+        @Test
+        @DisplayName("Boards with different letters should be rejected")
+        void testRejectsDifferentLetters() {
+                Board a = Board.fromWords("GHOST", "AFTER", "EPOCH", "GRAPE", "OUTDO", "TORCH");
+                Board b = a.copy();
+                b.setLetter(0, 'Z');
+                assertThrows(IllegalArgumentException.class, () -> SwapSolver.solve(a, b));
+        }
+
+        @Test
+        @DisplayName("WaffleGame should report whether the swaps left still suffice")
+        void testWaffleGameBudget() {
+                Board solution = Board.fromWords("GHOST", "AFTER", "EPOCH", "GRAPE", "OUTDO", "TORCH");
+                Board start = solution.copy();
+                start.swap(0, 20);
+                start.swap(1, 19);
+                WaffleGame game = new WaffleGame(start, solution);
+                assertEquals(2, game.solve().swaps());
+                assertTrue(game.isSolvableWithinSwaps());
+
+                // burn swaps on cells that don't matter until only one is left
+                while (game.getSwapsRemaining() > 1)
+                        game.swap(2, 4, 2, 4);
+                assertFalse(game.isSolvableWithinSwaps());
+        }
+}
@@ -0,0 +1,91 @@
+package com.guptadevagya.wafflegame;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// tests for the solution uniqueness checker.
+class UniquenessCheckerTest {
+
+        private static void assertValidGrid(Puzzle p, Board grid) {
+                for (int w = 0; w < Board.WORDS; w++)
+                        assertTrue(Dictionary.isWord(grid, w), grid.word(w) + " is not a word");
+                for (int i = 0; i < Board.CELLS; i++) {
+                        if (p.start().get(i) == p.solution().get(i))
+                                assertEquals(p.solution().get(i), grid.get(i), "green cell " + i + " moved");
+                }
+                char[] a = p.start().toString().toCharArray();
+                char[] b = grid.toString().toCharArray();
+                Arrays.sort(a);
+                Arrays.sort(b);
+                assertArrayEquals(a, b, "letters differ");
+        }
+
+        @Test
+        @DisplayName("Generated puzzles should have exactly one solution")
+        void testGeneratedPuzzlesAreUnique() {
+                SplittableRandom rng = new SplittableRandom(15);
+                UniquenessChecker checker = new UniquenessChecker();
+                for (int i = 0; i < 100; i++) {
+                        Puzzle p = WaffleGame.generate(rng);
+                        UniquenessChecker.Result r = checker.check(p);
+                        assertTrue(r.unique(), "puzzle " + i + " also spells " + r.alternative());
+                        assertEquals(1, r.solutions());
+                }
+        }
+
+        @Test
+        @DisplayName("The transposed solution should be found as a second grid")
+        void testFindsTranspose() {
+                Board solution = Board.fromWords("GHOST", "AFTER", "EPOCH", "GRAPE", "OUTDO", "TORCH");
+                Puzzle p = new Puzzle(solution.transpose(), solution);
+                UniquenessChecker.Result r = new UniquenessChecker().count(p, Integer.MAX_VALUE, Long.MAX_VALUE);
+                assertFalse(r.unique());
+                assertTrue(r.solutions() >= 2);
+                assertValidGrid(p, r.alternative());
+                assertNotEquals(solution, r.alternative());
+        }
+
+        @Test
+        @DisplayName("Running out of nodes should leave uniqueness unknown")
+        void testBudget() {
+                Puzzle p = WaffleGame.generate(new SplittableRandom(4));
+                UniquenessChecker checker = new UniquenessChecker();
+                UniquenessChecker.Result cut = checker.check(p, 1);
+                assertFalse(cut.finished());
+                assertFalse(cut.unique());
+                assertTrue(checker.check(p).finished());
+        }
+
+        @Test
+        @DisplayName("Auditing in parallel should match checking one by one")
+        void testCheckAllMatchesSequential() throws IOException, URISyntaxException {
+                Path file = Path.of(getClass().getClassLoader().getResource("waffles.txt").toURI());
+                List<Puzzle> puzzles = new ArrayList<>();
+                PuzzleFile.read(file, (n, p) -> puzzles.add(p));
+
+                UniquenessChecker.Result[] all = UniquenessChecker.checkAll(puzzles, 3);
+                UniquenessChecker checker = new UniquenessChecker();
+                int ambiguous = 0;
+                for (int i = 0; i < puzzles.size(); i++) {
+                        UniquenessChecker.Result r = checker.check(puzzles.get(i));
+                        assertEquals(r.unique(), all[i].unique());
+                        assertEquals(r.alternative(), all[i].alternative());
+                        if (!r.unique()) {
+                                ambiguous++;
+                                assertValidGrid(puzzles.get(i), r.alternative());
+                        }
+                }
+                // some hand-made puzzles in waffles.txt do admit a second grid
+                assertTrue(ambiguous > 0);
+        }
+}
@@ -2,6 +2,10 @@ package com.guptadevagya.wafflegame;
 
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Random;
+
 import static org.junit.jupiter.api.Assertions.*;
 
 // this class contains all the tests for our WaffleGame model.
@@ -89,4 +93,79 @@ class WaffleGameTest {
                         assertArrayEquals(expectedHints[i], actualHints[i], "Hint mismatch in row " + i);
                 }
         }
+
+        @Test
+        @DisplayName("Incremental hints should match a full recompute after every swap")
+        void testIdentifyHints_IncrementalMatchesFullRecompute() {
+                // solution with plenty of repeated letters so the duplicate handling gets exercised
+                char[][] solution = {
+                                { 'E', 'E', 'R', 'I', 'E' },
+                                { 'L', ' ', 'E', ' ', 'S' },
+                                { 'E', 'S', 'S', 'E', 'S' },
+                                { 'E', ' ', 'E', ' ', 'E' },
+                                { 'S', 'E', 'E', 'D', 'S' }
+                };
+                char[][] puzzle = new char[WaffleGame.WAFFLE_SIZE][];
+                for (int r = 0; r < WaffleGame.WAFFLE_SIZE; r++)
+                        puzzle[r] = solution[r].clone();
+
+                WaffleGame game = new WaffleGame(puzzle, solution);
+                Hint[][] actualHints = new Hint[WaffleGame.WAFFLE_SIZE][WaffleGame.WAFFLE_SIZE];
+                Random rng = new Random(42);
+
+                // swap random letter cells and compare against the straightforward algorithm
+                for (int step = 0; step < 2000; step++) {
+                        int r1 = rng.nextInt(WaffleGame.WAFFLE_SIZE);
+                        int c1 = rng.nextInt(WaffleGame.WAFFLE_SIZE);
+                        int r2 = rng.nextInt(WaffleGame.WAFFLE_SIZE);
+                        int c2 = rng.nextInt(WaffleGame.WAFFLE_SIZE);
+                        if (solution[r1][c1] == ' ' || solution[r2][c2] == ' ')
+                                continue;
+                        game.swapNoCost(r1, c1, r2, c2);
+                        game.identifyHints(actualHints);
+
+                        Hint[][] expectedHints = referenceHints(game.getPuzzleGrid(), solution);
+                        for (int i = 0; i < WaffleGame.WAFFLE_SIZE; i++) {
+                                assertArrayEquals(expectedHints[i], actualHints[i],
+                                                "Hint mismatch in row " + i + " at step " + step);
+                        }
+                }
+        }
+
+        // the original list-based hint algorithm, kept here as the reference
+        private static Hint[][] referenceHints(char[][] puzzle, char[][] solution) {
+                int n = WaffleGame.WAFFLE_SIZE;
+                Hint[][] hints = new Hint[n][n];
+                for (int r = 0; r < n; r++) {
+                        for (int c = 0; c < n; c++) {
+                                if (solution[r][c] == ' ')
+                                        hints[r][c] = Hint.BLANK;
+                                else if (puzzle[r][c] == solution[r][c])
+                                        hints[r][c] = Hint.CORRECT;
+                                else
+                                        hints[r][c] = Hint.NOT_IN_WORD;
+                        }
+                }
+                for (int pass = 0; pass < 2; pass++) {
+                        boolean horizontal = pass == 0;
+                        for (int index = 0; index < n; index += 2) {
+                                ArrayList<Character> unmatched = new ArrayList<>();
+                                for (int i = 0; i < n; i++) {
+                                        int r = horizontal ? index : i;
+                                        int c = horizontal ? i : index;
+                                        if (hints[r][c] != Hint.CORRECT)
+                                                unmatched.add(solution[r][c]);
+                                }
+                                for (int i = 0; i < n; i++) {
+                                        int r = horizontal ? index : i;
+                                        int c = horizontal ? i : index;
+                                        if (hints[r][c] != Hint.CORRECT && unmatched.contains(puzzle[r][c])) {
+                                                hints[r][c] = Hint.WRONG_POSITION;
+                                                unmatched.remove(Character.valueOf(puzzle[r][c]));
+                                        }
+                                }
+                        }
+                }
+                return hints;
+        }
 }
\ No newline at end of file
@@ -0,0 +1,155 @@
+package com.guptadevagya.wafflegame;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// tests for the headless JSON game server.
+class WaffleServerTest {
+
+        private static final Pattern ID = Pattern.compile("\"id\":\"([0-9a-f]+)\"");
+        private static final Pattern SWAPS = Pattern.compile("\"swapsRemaining\":(\\d+)");
+        private static final Pattern CODE = Pattern.compile("\"code\":\"([0-9A-Z]+)\"");
+
+        private PuzzleBank bank;
+        private SessionStore sessions;
+        private WaffleServer server;
+        private HttpClient client;
+
+        @BeforeEach
+        void start() throws IOException {
+                bank = new PuzzleBank(4, 1);
+                sessions = new SessionStore(1000, WaffleServer.IDLE_TIMEOUT_MILLIS, null);
+                server = new WaffleServer(0, bank, sessions);
+                client = HttpClient.newHttpClient();
+        }
+
+        @AfterEach
+        void stop() {
+                server.close();
+                bank.close();
+        }
+
+        private HttpResponse<String> send(String method, String path) throws IOException, InterruptedException {
+                HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + server.port() + path))
+                                .method(method, HttpRequest.BodyPublishers.noBody())
+                                .build();
+                return client.send(request, HttpResponse.BodyHandlers.ofString());
+        }
+
+        private static String group(Pattern p, String json) {
+                Matcher m = p.matcher(json);
+                assertTrue(m.find(), json);
+                return m.group(1);
+        }
+
+        @Test
+        @DisplayName("A game should be playable through swap, undo, hints and give up")
+        void testGameLifecycle() throws IOException, InterruptedException {
+                HttpResponse<String> created = send("POST", "/games");
+                assertEquals(200, created.statusCode());
+                assertEquals("application/json; charset=utf-8", created.headers().firstValue("Content-Type").orElse(""));
+                String id = group(ID, created.body());
+                assertEquals("20", group(SWAPS, created.body()));
+                assertTrue(created.body().contains("\"hints\":[["), created.body());
+
+                // corner tiles are letters in every waffle
+                HttpResponse<String> swapped = send("POST", "/games/" + id + "/swap?r1=0&c1=0&r2=4&c2=4");
+                assertEquals(200, swapped.statusCode(), swapped.body());
+                assertEquals("19", group(SWAPS, swapped.body()));
+
+                HttpResponse<String> undone = send("POST", "/games/" + id + "/undo");
+                assertEquals(200, undone.statusCode());
+                assertEquals("20", group(SWAPS, undone.body()));
+                assertEquals(created.body(), undone.body());
+                assertEquals(409, send("POST", "/games/" + id + "/undo").statusCode());
+
+                HttpResponse<String> hints = send("GET", "/games/" + id + "/hints");
+                assertEquals(200, hints.statusCode());
+                assertTrue(hints.body().startsWith("{\"hints\":[[\""), hints.body());
+                assertEquals(5, hints.body().split("\\],\\[").length);
+
+                HttpResponse<String> gaveUp = send("POST", "/games/" + id + "/giveup");
+                assertTrue(gaveUp.body().contains("\"completed\":true,\"gaveUp\":true"), gaveUp.body());
+                assertFalse(gaveUp.body().contains("WRONG_POSITION"));
+                assertEquals(409, send("POST", "/games/" + id + "/swap?r1=0&c1=0&r2=4&c2=4").statusCode());
+        }
+
+        @Test
+        @DisplayName("Bad requests should get JSON errors with the right status")
+        void testErrors() throws IOException, InterruptedException {
+                String id = group(ID, send("POST", "/games").body());
+
+                HttpResponse<String> hole = send("POST", "/games/" + id + "/swap?r1=1&c1=1&r2=0&c2=0");
+                assertEquals(400, hole.statusCode());
+                assertTrue(hole.body().startsWith("{\"error\":"), hole.body());
+                assertEquals(400, send("POST", "/games/" + id + "/swap?r1=0&c1=0").statusCode());
+                assertEquals(400, send("POST", "/games/" + id + "/swap?r1=x&c1=0&r2=4&c2=4").statusCode());
+                assertEquals(400, send("POST", "/games?code=not-a-code").statusCode());
+                assertEquals(405, send("GET", "/games").statusCode());
+                assertEquals(405, send("GET", "/games/" + id + "/undo").statusCode());
+                assertEquals(404, send("GET", "/games/unknown").statusCode());
+                assertEquals(404, send("POST", "/games/" + id + "/shuffle").statusCode());
+                assertEquals(404, send("GET", "/games/0123456789abcdef").statusCode());
+                assertEquals(404, send("POST", "/gamesXYZ").statusCode());
+                assertEquals(404, send("GET", "/gamesXYZ/" + id).statusCode());
+                assertEquals(1, sessions.size());
+
+                // a shared code starts the same puzzle for everyone, wherever it is in the query
+                String code = PuzzleCode.of(42);
+                String first = send("POST", "/games?code=" + code).body();
+                String second = send("POST", "/games?lang=en&code=" + code.substring(0, 4) + "-" + code.substring(4)).body();
+                assertNotEquals(group(ID, first), group(ID, second));
+                assertEquals(code, group(CODE, first));
+                assertEquals(code, group(CODE, second));
+                assertEquals(first.substring(first.indexOf("\"grid\"")), second.substring(second.indexOf("\"grid\"")));
+        }
+
+        @Test
+        @DisplayName("Every new game should come with a code that starts the same puzzle")
+        void testNewGamesHaveCodes() throws IOException, InterruptedException {
+                for (int i = 0; i < 3; i++) {
+                        String game = send("POST", "/games").body();
+                        String code = group(CODE, game);
+                        assertEquals(code, group(CODE, send("GET", "/games/" + group(ID, game)).body()));
+                        String shared = send("POST", "/games?code=" + code).body();
+                        assertEquals(game.substring(game.indexOf("\"grid\"")), shared.substring(shared.indexOf("\"grid\"")));
+                }
+        }
+
+        @Test
+        @DisplayName("Concurrent clients should each get their own game")
+        void testConcurrentSessions() throws Exception {
+                try (ExecutorService clients = Executors.newVirtualThreadPerTaskExecutor()) {
+                        List<Future<String>> ids = new ArrayList<>();
+                        for (int i = 0; i < 50; i++) {
+                                ids.add(clients.submit(() -> {
+                                        String id = group(ID, send("POST", "/games").body());
+                                        HttpResponse<String> r = send("POST", "/games/" + id + "/swap?r1=0&c1=0&r2=0&c2=4");
+                                        assertEquals(200, r.statusCode(), r.body());
+                                        assertEquals("19", group(SWAPS, r.body()));
+                                        return id;
+                                }));
+                        }
+                        for (Future<String> f : ids)
+                                assertEquals(16, f.get().length());
+                }
+                assertEquals(50, sessions.size());
+        }
+}
@@ -0,0 +1,64 @@
+package com.guptadevagya.wafflegame;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// tests for positional pattern queries over the dictionary.
+class WordQueryTest {
+
+        @Test
+        @DisplayName("Pattern queries should match a brute-force scan of the word list")
+        void testQueryMatchesBruteForce() {
+                // ?A?E? with no Z
+                List<String> expected = new ArrayList<>();
+                for (String w : Dictionary.words()) {
+                        if (w.charAt(1) == 'A' && w.charAt(3) == 'E' && w.indexOf('Z') < 0)
+                                expected.add(w);
+                }
+
+                WordQuery query = Dictionary.query("?A?E?").exclude("Z");
+                List<String> actual = new ArrayList<>();
+                query.forEach(actual::add);
+
+                assertFalse(expected.isEmpty());
+                assertEquals(expected.size(), query.count());
+                assertEquals(expected, actual);
+        }
+
+        @Test
+        @DisplayName("Allowed-letter sets should combine with fixed letters")
+        void testAllowedSets() {
+                // starts with S, second letter a vowel, ends in T or Y
+                WordQuery query = Dictionary.query("S????").allow(1, "AEIOU").allow(4, "TY");
+                int expected = 0;
+                for (String w : Dictionary.words()) {
+                        if (w.charAt(0) == 'S' && "AEIOU".indexOf(w.charAt(1)) >= 0
+                                        && (w.charAt(4) == 'T' || w.charAt(4) == 'Y'))
+                                expected++;
+                }
+                assertEquals(expected, query.count());
+
+                SplittableRandom rng = new SplittableRandom(3);
+                for (int i = 0; i < 100; i++) {
+                        String w = query.random(rng);
+                        assertEquals('S', w.charAt(0));
+                        assertTrue("AEIOU".indexOf(w.charAt(1)) >= 0, w);
+                        assertTrue(w.endsWith("T") || w.endsWith("Y"), w);
+                }
+        }
+
+        @Test
+        @DisplayName("A query with no matches should count zero and return no random word")
+        void testEmptyQuery() {
+                WordQuery query = Dictionary.query("Q????").exclude(1, "U").allow(1, "U");
+                assertEquals(0, query.count());
+                assertNull(query.random(new SplittableRandom(1)));
+                assertFalse(query.iterator().hasNext());
+        }
+}